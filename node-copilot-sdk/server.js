@@ -4,6 +4,13 @@ import crypto from "node:crypto";
 
 const PORT = process.env.PORT ? Number(process.env.PORT) : 8788;
 
+// Pula klientów Copilot (per token): start() CLI to najdroższa część requestu — robimy go raz.
+const POOL_IDLE_MS = Number(process.env.COPILOT_POOL_IDLE_MS ?? 10 * 60_000);
+const POOL_MAX_CLIENTS = Number(process.env.COPILOT_POOL_MAX_CLIENTS ?? 32);
+const POOL_SWEEP_MS = Number(process.env.COPILOT_POOL_SWEEP_MS ?? 30_000);
+// Dłużej niż idle keep-alive klienta HTTP po stronie Javy (JDK HttpClient: 30s) — inaczej wyścig na zamykanym sockecie.
+const KEEP_ALIVE_TIMEOUT_MS = Number(process.env.KEEP_ALIVE_TIMEOUT_MS ?? 65_000);
+
 const app = express();
 app.use(express.json({limit: "1mb"}));
 
@@ -18,6 +25,144 @@ app.use((req, res, next) => {
 
 app.get("/healthz", (_req, res) => res.status(200).send("ok"));
 
+/**
+ * Per-token pool of started CopilotClient instances.
+ * Key = sha256(token) prefix (token never stored as a map key / logged).
+ * Clients are reused across requests and stopped after POOL_IDLE_MS without use.
+ */
+const pool = new Map();
+const poolStats = {created: 0, reused: 0, evictedIdle: 0, evictedBroken: 0, evictedCapacity: 0, rejectedCapacity: 0, startFailures: 0};
+
+function tokenKey(token) {
+    return crypto.createHash("sha256").update(token).digest("hex").slice(0, 16);
+}
+
+async function stopEntry(entry) {
+    // pod tym kluczem może już stać nowszy klient (po wyrzuceniu zepsutego) — tego nie ruszamy
+    if (pool.get(entry.key) === entry) pool.delete(entry.key);
+    await entry.client?.stop?.().catch(() => void 0);
+}
+
+/**
+ * Zwalnia miejsce: najdawniej używany klient bez requestów w locie.
+ * POOL_MAX_CLIENTS to twardy limit — gdy wszyscy mają requesty w locie, nowy token dostaje 503
+ * (proxy potraktuje to jak niedostępny upstream), zamiast startować kolejny proces CLI ponad limit.
+ */
+function evictForCapacity() {
+    if (pool.size < POOL_MAX_CLIENTS) return;
+    let oldest = null;
+    for (const e of pool.values()) {
+        if (e.inFlight > 0) continue;
+        if (!oldest || e.lastUsed < oldest.lastUsed) oldest = e;
+    }
+    if (!oldest) {
+        poolStats.rejectedCapacity++;
+        const err = new Error(`Copilot client pool is full (${POOL_MAX_CLIENTS} clients busy), retry later`);
+        err.code = "pool_exhausted";
+        throw err;
+    }
+    poolStats.evictedCapacity++;
+    void stopEntry(oldest);
+}
+
+/** Status + kod błędu OpenAI dla wyjątku z handlera. */
+function errorStatus(e, msg) {
+    if (e?.code === "pool_exhausted") return {status: 503, code: "pool_exhausted"};
+    if (/unauthorized|forbidden|bad credentials|invalid token/i.test(msg)) return {status: 401, code: "invalid_api_key"};
+    return {status: 500, code: "server_error"};
+}
+
+/**
+ * Returns a started client for the token and a release(broken) callback.
+ * Concurrent first requests for the same token share one start().
+ */
+async function acquireClient(token) {
+    const key = tokenKey(token);
+    let entry = pool.get(key);
+
+    if (entry) {
+        poolStats.reused++;
+    } else {
+        evictForCapacity();
+        const client = new CopilotClient({githubToken: token, useLoggedInUser: false});
+        entry = {key, client, started: null, inFlight: 0, broken: false, lastUsed: Date.now(), createdAt: Date.now(), requests: 0};
+        entry.started = client.start();
+        pool.set(key, entry);
+        poolStats.created++;
+    }
+
+    entry.inFlight++;
+    entry.lastUsed = Date.now();
+    try {
+        await entry.started;
+    } catch (e) {
+        entry.inFlight--;
+        poolStats.startFailures++;
+        await stopEntry(entry);
+        throw e;
+    }
+
+    let released = false;
+    return {
+        client: entry.client,
+        release(broken) {
+            if (released) return;
+            released = true;
+            entry.inFlight--;
+            entry.requests++;
+            entry.lastUsed = Date.now();
+            // błąd auth / padnięty proces CLI — następny request wystartuje świeżego klienta
+            if (broken && !entry.broken) {
+                entry.broken = true;
+                poolStats.evictedBroken++;
+                if (pool.get(key) === entry) pool.delete(key);
+            }
+            // zepsuty klient (już poza pulą) zatrzymuje ostatni zwalniający request
+            if (entry.broken && entry.inFlight === 0) void stopEntry(entry);
+        },
+    };
+}
+
+function isBrokenClientError(msg) {
+    return /unauthorized|forbidden|bad credentials|invalid token|not started|disposed|closed|exited|EPIPE|ECONNRESET/i.test(msg ?? "");
+}
+
+const sweeper = setInterval(() => {
+    const now = Date.now();
+    for (const e of pool.values()) {
+        if (e.inFlight === 0 && now - e.lastUsed > POOL_IDLE_MS) {
+            poolStats.evictedIdle++;
+            void stopEntry(e);
+        }
+    }
+}, POOL_SWEEP_MS);
+sweeper.unref();
+
+/**
+ * Pool health / metrics (no token material — only key prefixes and counters).
+ */
+app.get("/health", (_req, res) => {
+    const now = Date.now();
+    const clients = [...pool.values()].map((e) => ({
+        key: e.key.slice(0, 8),
+        inFlight: e.inFlight,
+        requests: e.requests,
+        ageMs: now - e.createdAt,
+        idleMs: e.inFlight > 0 ? 0 : now - e.lastUsed,
+    }));
+    res.json({
+        status: "ok",
+        pool: {
+            size: pool.size,
+            max: POOL_MAX_CLIENTS,
+            idleMs: POOL_IDLE_MS,
+            inFlight: clients.reduce((a, c) => a + c.inFlight, 0),
+            ...poolStats,
+            clients,
+        },
+    });
+});
+
 /**
  * Extracts Bearer token from Authorization header.
  * Accepts: "Authorization: Bearer <token>"
@@ -74,12 +219,12 @@ app.get(["/models", "/v1/models"], async (req, res) => {
         return res.status(err.status).json(err.body);
     }
 
-    let client;
+    let lease;
+    let failure;
     try {
-        client = new CopilotClient({githubToken: token, useLoggedInUser: false});
-        await client.start();
+        lease = await acquireClient(token);
 
-        const models = await client.listModels();
+        const models = await lease.client.listModels();
 
         // Return OpenAI-like "list"
         const data = (models ?? []).map((m) => ({
@@ -91,12 +236,123 @@ app.get(["/models", "/v1/models"], async (req, res) => {
         return res.json({object: "list", data});
     } catch (e) {
         const msg = e?.message ?? "Unknown error";
-        return res.status(500).json(openAiError(500, msg, "server_error").body);
+        failure = msg;
+        const {status, code} = errorStatus(e, msg);
+        return res.status(status).json(openAiError(status, msg, code).body);
     } finally {
-        await client?.stop?.().catch(() => void 0);
+        lease?.release(failure != null && isBrokenClientError(failure));
+    }
+});
+
+/**
+ * Warmup: starts (or touches) the pooled client for the caller's token,
+ * so the first chat does not pay CLI startup. Idempotent.
+ */
+app.post("/pool/warmup", async (req, res) => {
+    const token = getBearerToken(req);
+    if (!token) {
+        const err = openAiError(401, "Missing Authorization: Bearer <token>", "missing_api_key");
+        return res.status(err.status).json(err.body);
+    }
+
+    const t0 = Date.now();
+    try {
+        const lease = await acquireClient(token);
+        lease.release(false);
+        return res.json({status: "ok", tookMs: Date.now() - t0, poolSize: pool.size});
+    } catch (e) {
+        const msg = e?.message ?? "Unknown error";
+        const {status, code} = errorStatus(e, msg);
+        return res.status(status).json(openAiError(status, msg, code).body);
     }
 });
 
+function sseChunk(res, id, created, model, delta, finishReason) {
+    res.write(`data: ${JSON.stringify({
+        id,
+        object: "chat.completion.chunk",
+        created,
+        model,
+        choices: [{index: 0, delta, finish_reason: finishReason ?? null}],
+    })}\n\n`);
+}
+
+/**
+ * stream=true: OpenAI-compatible SSE (chat.completion.chunk ... data: [DONE]).
+ * Deltas are forwarded as the SDK emits assistant.message_delta events.
+ * Errors before the first byte are plain JSON errors (proxy may fail over);
+ * after that they are sent as a final `data: {"error":...}` event.
+ */
+async function streamCompletion(req, res, token, chosenModel, prompt) {
+    let lease;
+    let session;
+    let failure;
+    let clientGone = false;
+
+    const id = `copilot-${crypto.randomUUID()}`;
+    const created = Math.floor(Date.now() / 1000);
+    let headersSent = false;
+    let emitted = 0;
+
+    const open = () => {
+        if (headersSent) return;
+        headersSent = true;
+        res.status(200);
+        res.setHeader("Content-Type", "text/event-stream; charset=utf-8");
+        res.setHeader("Cache-Control", "no-cache");
+        res.setHeader("X-Accel-Buffering", "no");
+        res.flushHeaders();
+        sseChunk(res, id, created, chosenModel, {role: "assistant", content: ""});
+    };
+
+    res.on("close", () => {
+        if (res.writableFinished) return;
+        // klient (proxy) się rozłączył — nie generujemy dalej na próżno
+        clientGone = true;
+        void session?.abort?.().catch(() => void 0);
+    });
+
+    try {
+        lease = await acquireClient(token);
+        session = await lease.client.createSession({model: chosenModel, streaming: true});
+
+        session.on((event) => {
+            if (clientGone || event?.type !== "assistant.message_delta") return;
+            const delta = event?.data?.deltaContent ?? "";
+            if (!delta) return;
+            open();
+            emitted += delta.length;
+            sseChunk(res, id, created, chosenModel, {content: String(delta)});
+        });
+
+        const resp = await session.sendAndWait({prompt});
+        if (clientGone) return;
+
+        // SDK bez delt (np. starsza wersja CLI) — cała treść jako jeden chunk
+        const content = resp?.data?.content ?? resp?.content ?? "";
+        open();
+        if (emitted === 0 && content) sseChunk(res, id, created, chosenModel, {content: String(content)});
+        sseChunk(res, id, created, chosenModel, {}, "stop");
+        res.write("data: [DONE]\n\n");
+        res.end();
+    } catch (e) {
+        const msg = e?.message ?? "Unknown error";
+        failure = msg;
+        if (clientGone) return;
+
+        const {status, code} = errorStatus(e, msg);
+        const body = openAiError(status, msg, code).body;
+        if (!headersSent) return res.status(status).json(body);
+
+        res.write(`data: ${JSON.stringify(body)}\n\n`);
+        res.write("data: [DONE]\n\n");
+        res.end();
+    } finally {
+        await session?.dispose?.().catch(() => void 0);
+        lease?.release(failure != null && isBrokenClientError(failure));
+    }
+}
+
 /**
  * OpenAI-compatible Chat Completions endpoint.
  * This is the key endpoint for your Java LlmProxyService.
@@ -110,12 +366,6 @@ app.post("/chat/completions", async (req, res) => {
 
     const {model, messages, stream} = req.body ?? {};
 
-    // Your Java proxy forces stream=false; reject streaming explicitly to avoid surprises.
-    if (stream === true) {
-        const err = openAiError(400, "Streaming is not supported by this provider.", "unsupported_parameter", "stream");
-        return res.status(err.status).json(err.body);
-    }
-
     const chosenModel = (typeof model === "string" && model.trim()) ? model.trim() : "gpt-4.1";
 
     // Expect messages[] like ChatDtos.Message(role, content)
@@ -130,15 +380,17 @@ app.post("/chat/completions", async (req, res) => {
         return res.status(err.status).json(err.body);
     }
 
-    let client;
+    if (stream === true) return streamCompletion(req, res, token, chosenModel, prompt);
+
+    let lease;
     let session;
+    let failure;
 
     try {
-        client = new CopilotClient({githubToken: token, useLoggedInUser: false});
-        client.options
-        await client.start();
+        lease = await acquireClient(token);
 
-        session = await client.createSession({model: chosenModel});
+        // sesja jest per request (izolacja rozmów), klient — współdzielony z puli
+        session = await lease.client.createSession({model: chosenModel});
 
         // Copilot SDK examples use sendAndWait({prompt}). :contentReference[oaicite:0]{index=0}
         const resp = await session.sendAndWait({prompt});
@@ -171,22 +423,31 @@ app.post("/chat/completions", async (req, res) => {
         });
     } catch (e) {
         const msg = e?.message ?? "Unknown error";
+        failure = msg;
 
         // A few common auth-ish failures map nicely to 401 for your upstream exception logs.
-        const status =
-            /unauthorized|forbidden|bad credentials|invalid token/i.test(msg) ? 401 : 500;
-
-        const code =
-            status === 401 ? "invalid_api_key" : "server_error";
+        const {status, code} = errorStatus(e, msg);
 
         return res.status(status).json(openAiError(status, msg, code).body);
     } finally {
         await session?.stop?.().catch(() => void 0);
         await session?.dispose?.().catch(() => void 0);
-        await client?.stop?.().catch(() => void 0);
+        lease?.release(failure != null && isBrokenClientError(failure));
     }
 });
 
-app.listen(PORT, () => {
-    console.log(`copilot-proxy listening on :${PORT}`);
+const server = app.listen(PORT, () => {
+    console.log(`copilot-proxy listening on :${PORT} (pool max=${POOL_MAX_CLIENTS}, idle=${POOL_IDLE_MS}ms)`);
 });
+server.keepAliveTimeout = KEEP_ALIVE_TIMEOUT_MS;
+server.headersTimeout = KEEP_ALIVE_TIMEOUT_MS + 1_000;
+
+async function shutdown() {
+    clearInterval(sweeper);
+    server.close();
+    await Promise.all([...pool.values()].map(stopEntry));
+    process.exit(0);
+}
+
+process.on("SIGTERM", shutdown);
+process.on("SIGINT", shutdown);
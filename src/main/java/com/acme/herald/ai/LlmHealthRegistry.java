@@ -0,0 +1,37 @@
+package com.acme.herald.ai;
+
+import com.acme.herald.config.LlmResilienceProperties;
+import com.acme.herald.resilience.CircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/** Stan zdrowia per modelId z katalogu (tworzony leniwie, żyje do restartu). */
+@Component
+@RequiredArgsConstructor
+class LlmHealthRegistry {
+    private final LlmResilienceProperties props;
+    private final MeterRegistry meters;
+    private final Map<String, LlmModelHealth> byModel = new ConcurrentHashMap<>();
+
+    LlmModelHealth forModel(String modelId) {
+        return byModel.computeIfAbsent(modelId, this::create);
+    }
+
+    private LlmModelHealth create(String modelId) {
+        var b = props.getBreaker();
+        var breaker = new CircuitBreaker("llm-model:" + modelId, b.getWindowSize(), b.getMinCalls(),
+                b.getFailureRateThreshold(), b.getOpenDuration(), b.getHalfOpenCalls(), meters);
+        var h = new LlmModelHealth(modelId, breaker, props.getEwmaAlpha());
+
+        Tags tags = Tags.of("model", modelId);
+        meters.gauge("herald.llm.model.latency_ewma_ms", tags, h, LlmModelHealth::latencyEwmaMs);
+        meters.gauge("herald.llm.model.error_rate", tags, h, LlmModelHealth::errorRate);
+        meters.gauge("herald.llm.model.rate_limited_seconds", tags, h, LlmModelHealth::rateLimitedForSeconds);
+        return h;
+    }
+}
@@ -0,0 +1,82 @@
+package com.acme.herald.ai;
+
+import com.acme.herald.config.LlmMetricsProperties;
+import com.acme.herald.domain.ChatDtos;
+import com.acme.herald.domain.JiraModels;
+import com.acme.herald.provider.JiraProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Metryki LLM per modelId i grupa użytkownika (eksport: /actuator/prometheus):
+ * - herald.llm.upstream.latency{model,group,status} — każdy POST do upstreamu (także retry),
+ * - herald.llm.upstream.ttfb{model,group}           — do nagłówków odpowiedzi (interceptor RestClienta),
+ * - herald.llm.tokens{model,group,type}             — prompt / completion z usage,
+ * - herald.llm.param_retries{model,param}           — retry po 400 z nieobsługiwanym parametrem.
+ */
+@Component
+@RequiredArgsConstructor
+public class LlmMetrics {
+    /** Atrybuty requestu RestClienta, po których interceptor wie, czyj to call. */
+    public static final String ATTR_MODEL = "herald.llm.model";
+    public static final String ATTR_GROUP = "herald.llm.group";
+
+    private final MeterRegistry meters;
+    private final LlmMetricsProperties props;
+    private final JiraProvider jira;
+
+    /** Tag grupy bieżącego użytkownika (getMe jest memoizowane w obrębie requestu). */
+    String userGroup() {
+        if (props.getGroups() == null || props.getGroups().isEmpty()) return "all";
+        try {
+            var me = jira.getMe();
+            Set<String> mine = me.groups() == null || me.groups().items() == null ? Set.of()
+                    : me.groups().items().stream()
+                    .map(JiraModels.GroupItem::name)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toSet());
+            return props.getGroups().stream().filter(mine::contains).findFirst().orElse("other");
+        } catch (RuntimeException e) {
+            return "unknown";
+        }
+    }
+
+    void upstreamCall(String modelId, String group, String status, long nanos) {
+        Timer.builder("herald.llm.upstream.latency")
+                .tags("model", modelId, "group", group, "status", status)
+                .publishPercentileHistogram()
+                .register(meters)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void timeToFirstByte(String modelId, String group, long nanos) {
+        Timer.builder("herald.llm.upstream.ttfb")
+                .tags("model", modelId, "group", group)
+                .publishPercentileHistogram()
+                .register(meters)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void usage(String modelId, String group, ChatDtos.Usage usage) {
+        if (usage == null) return;
+        if (usage.prompt_tokens() != null) {
+            meters.counter("herald.llm.tokens", "model", modelId, "group", group, "type", "prompt")
+                    .increment(usage.prompt_tokens());
+        }
+        if (usage.completion_tokens() != null) {
+            meters.counter("herald.llm.tokens", "model", modelId, "group", group, "type", "completion")
+                    .increment(usage.completion_tokens());
+        }
+    }
+
+    void paramRetry(String modelId, String param) {
+        meters.counter("herald.llm.param_retries", "model", modelId, "param", param).increment();
+    }
+}
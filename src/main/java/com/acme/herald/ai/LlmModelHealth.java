@@ -0,0 +1,84 @@
+package com.acme.herald.ai;
+
+import com.acme.herald.resilience.CircuitBreaker;
+
+import java.time.Duration;
+
+/**
+ * Zdrowie jednego modelu z katalogu: EWMA latencji i error rate, okno rate-limitu (429)
+ * oraz circuit breaker. Aktualizowane po każdym callu w LlmProxyService.
+ */
+final class LlmModelHealth {
+    private final String modelId;
+    private final CircuitBreaker breaker;
+    private final double alpha;
+
+    private double latencyEwmaMs = Double.NaN;
+    private double errorRateEwma;
+    private volatile long rateLimitedUntil; // System.nanoTime(), 0 = brak
+
+    LlmModelHealth(String modelId, CircuitBreaker breaker, double alpha) {
+        this.modelId = modelId;
+        this.breaker = breaker;
+        this.alpha = (alpha > 0 && alpha <= 1) ? alpha : 0.2;
+    }
+
+    String modelId() {
+        return modelId;
+    }
+
+    CircuitBreaker breaker() {
+        return breaker;
+    }
+
+    synchronized double latencyEwmaMs() {
+        return Double.isNaN(latencyEwmaMs) ? 0 : latencyEwmaMs;
+    }
+
+    synchronized double errorRate() {
+        return errorRateEwma;
+    }
+
+    /** Sekundy do końca okna 429 albo 0. */
+    long rateLimitedForSeconds() {
+        long until = rateLimitedUntil;
+        if (until == 0) return 0;
+        long left = until - System.nanoTime();
+        return left > 0 ? Math.max(1, Duration.ofNanos(left).toSeconds()) : 0;
+    }
+
+    void onSuccess(long nanos) {
+        sample(nanos, false);
+        breaker.onSuccess();
+    }
+
+    /** Odpowiedź 4xx — upstream żyje, dla breakera to sukces. */
+    void onClientError(long nanos) {
+        sample(nanos, false);
+        breaker.onSuccess();
+    }
+
+    void onFailure(long nanos) {
+        sample(nanos, true);
+        breaker.onFailure();
+    }
+
+    /** 429: nie psuje breakera (model zdrowy, tylko limit), ale omijamy go do końca Retry-After. */
+    void onRateLimited(Duration retryAfter) {
+        synchronized (this) {
+            errorRateEwma = alpha + (1 - alpha) * errorRateEwma;
+        }
+        rateLimitedUntil = System.nanoTime() + retryAfter.toNanos();
+        breaker.onIgnored();
+    }
+
+    void onIgnored() {
+        breaker.onIgnored();
+    }
+
+    private synchronized void sample(long nanos, boolean failure) {
+        double ms = nanos / 1_000_000.0;
+        latencyEwmaMs = Double.isNaN(latencyEwmaMs) ? ms : alpha * ms + (1 - alpha) * latencyEwmaMs;
+        errorRateEwma = alpha * (failure ? 1 : 0) + (1 - alpha) * errorRateEwma;
+    }
+}
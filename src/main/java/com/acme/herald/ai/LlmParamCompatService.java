@@ -0,0 +1,141 @@
+package com.acme.herald.ai;
+
+import com.acme.herald.auth.PermissionService;
+import com.acme.herald.config.JiraProperties;
+import com.acme.herald.config.LlmIntegrationDtos.StoredModel;
+import com.acme.herald.provider.JiraProvider;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pamięć "czego model nie akceptuje" (np. max_tokens -> max_completion_tokens, brak temperature).
+ *
+ * Zamiast odkrywać to 400-ką przy każdym requeście, raz nauczone przepisanie stosujemy od razu.
+ * Trzymane w pamięci i (best-effort) w osobnym project property obok katalogu — zapis wymaga
+ * uprawnień admina projektu, więc dla zwykłego usera zostaje tylko w pamięci instancji.
+ * Zapis zmienia tylko wpis jednego modelu na świeżo odczytanej wartości — wpisy nauczone
+ * przez inne instancje nie są nadpisywane.
+ *
+ * Każdy wpis ma fingerprint konfiguracji modelu — edycja modelu przez admina go unieważnia.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+class LlmParamCompatService {
+
+    private static final String PROP_KEY = "herald.llmParamCompat";
+
+    private final JiraProvider jira;
+    private final JiraProperties jiraProps;
+    private final JsonMapper jsonMapper;
+    private final PermissionService permissions;
+
+    private final Map<String, ParamCompat> learned = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    record ParamCompat(String fingerprint, boolean maxCompletionTokens, boolean dropTemperature, String learnedAt) {
+        static final ParamCompat NONE = new ParamCompat(null, false, false, null);
+    }
+
+    record StoredParamCompat(Integer version, Map<String, ParamCompat> models) {}
+
+    /** Nauczone przepisania dla modelu (NONE, gdy brak albo model był edytowany). */
+    ParamCompat forModel(StoredModel cfg) {
+        ensureLoaded();
+        ParamCompat p = learned.get(cfg.id());
+        if (p == null || !fingerprint(cfg).equals(p.fingerprint())) return ParamCompat.NONE;
+        return p;
+    }
+
+    /** Stosuje nauczone przepisania do payloadu; zwraca to, co zostało zastosowane. */
+    ParamCompat apply(StoredModel cfg, Map<String, Object> payload) {
+        ParamCompat p = forModel(cfg);
+        if (p.maxCompletionTokens() && payload.containsKey("max_tokens")) {
+            payload.put("max_completion_tokens", payload.remove("max_tokens"));
+        }
+        if (p.dropTemperature()) {
+            payload.remove("temperature");
+        }
+        return p;
+    }
+
+    void learn(StoredModel cfg, boolean maxCompletionTokens, boolean dropTemperature) {
+        ParamCompat prev = forModel(cfg);
+        boolean mct = prev.maxCompletionTokens() || maxCompletionTokens;
+        boolean dt = prev.dropTemperature() || dropTemperature;
+        if (mct == prev.maxCompletionTokens() && dt == prev.dropTemperature()) return;
+
+        put(cfg, new ParamCompat(fingerprint(cfg), mct, dt, Instant.now().toString()));
+    }
+
+    /** Nauczone przepisanie przestało działać (upstream zmienił zdanie) — zapominamy. */
+    void forget(StoredModel cfg) {
+        if (learned.remove(cfg.id()) != null) persist(cfg.id(), null);
+    }
+
+    // ───────────── internals ─────────────
+
+    private void put(StoredModel cfg, ParamCompat p) {
+        learned.put(cfg.id(), p);
+        log.info("LLM param compat learned for '{}': max_completion_tokens={}, dropTemperature={}",
+                cfg.id(), p.maxCompletionTokens(), p.dropTemperature());
+        persist(cfg.id(), p);
+    }
+
+    private void ensureLoaded() {
+        if (loaded) return;
+        try {
+            readStored().forEach(learned::putIfAbsent);
+            loaded = true;
+        } catch (Exception e) {
+            // bez pamięci też działa — najwyżej znowu 400 + retry
+            log.debug("LLM param compat not loaded: {}", e.getMessage());
+        }
+    }
+
+    /** Zapis wpisu modelu (null = usunięcie): świeży odczyt property + zmiana jednego wpisu. */
+    private void persist(String modelId, ParamCompat p) {
+        try {
+            // zwykły user i tak nie zapisze property — nie płacimy za odczyt i nieudany PUT
+            if (!permissions.isProjectAdmin()) return;
+
+            Map<String, ParamCompat> merged = new HashMap<>(readStored());
+            if (p != null) merged.put(modelId, p);
+            else merged.remove(modelId);
+            merged.forEach(learned::putIfAbsent);
+
+            jira.setProjectProperty(jiraProps.getProjectKey(), PROP_KEY, new StoredParamCompat(1, merged));
+        } catch (Exception e) {
+            // nieudany odczyt też kończy tutaj — bez świeżej wartości nie nadpisujemy property
+            log.debug("LLM param compat kept in memory only: {}", e.getMessage());
+        }
+    }
+
+    private Map<String, ParamCompat> readStored() {
+        JsonNode v = jira.getProjectProperty(jiraProps.getProjectKey(), PROP_KEY);
+        if (v == null || !v.isObject() || v.size() == 0) return Map.of();
+        StoredParamCompat s = jsonMapper.treeToValue(v, StoredParamCompat.class);
+        return s != null && s.models() != null ? s.models() : Map.of();
+    }
+
+    /** Zmienia się przy każdej edycji modelu istotnej dla wywołania upstream. */
+    private static String fingerprint(StoredModel cfg) {
+        var d = cfg.defaults();
+        return Integer.toHexString(Objects.hash(
+                cfg.model(),
+                cfg.baseUrl(),
+                cfg.githubCopilotModel(),
+                d != null ? d.temperature() : null,
+                d != null ? d.maxTokens() : null
+        ));
+    }
+}
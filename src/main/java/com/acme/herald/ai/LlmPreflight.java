@@ -0,0 +1,95 @@
+package com.acme.herald.ai;
+
+import com.acme.herald.config.LlmIntegrationDtos.StoredModel;
+import com.acme.herald.config.LlmPreflightProperties;
+import com.acme.herald.domain.ChatDtos;
+import com.acme.herald.web.error.PayloadTooLargeException;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pre-flight przed wysłaniem do upstreamu: czy rozmowa + max_tokens zmieści się
+ * w contextWindowTokens modelu. Jeśli nie — przycinamy (najstarsze wiadomości poza system,
+ * ostatnia wiadomość zawsze zostaje) albo od razu 413, zamiast płacić za upload i dostać 400.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+class LlmPreflight {
+    private final LlmPreflightProperties props;
+    private final MeterRegistry meters;
+
+    List<ChatDtos.Message> shape(StoredModel cfg, List<ChatDtos.Message> messages, Integer maxTokens) {
+        Integer window = cfg.contextWindowTokens();
+        if (!props.isEnabled() || window == null || window <= 0 || messages == null || messages.isEmpty()) {
+            return messages;
+        }
+
+        int reserve = maxTokens != null && maxTokens > 0 ? maxTokens : props.getDefaultCompletionReserve();
+        int margin = Math.max(0, Math.min(props.getSafetyMarginPercent(), 50));
+        int budget = (int) ((long) window * (100 - margin) / 100) - reserve;
+
+        int total = TokenEstimator.estimate(messages);
+        if (total <= budget) {
+            count(cfg, "ok");
+            return messages;
+        }
+
+        if (budget <= 0) {
+            throw reject(cfg, "max_tokens (%d) nie mieści się w oknie modelu '%s' (%d tokenów)."
+                    .formatted(reserve, cfg.id(), window));
+        }
+        if (props.getMode() == LlmPreflightProperties.Mode.REJECT) {
+            throw reject(cfg, tooLong(cfg, total, window, reserve));
+        }
+
+        List<ChatDtos.Message> shaped = truncateOldestFirst(messages, total, budget);
+        if (shaped == null) {
+            throw reject(cfg, tooLong(cfg, total, window, reserve));
+        }
+
+        log.info("LLM preflight '{}': ~{} tokens > budget {}, dropped {} oldest message(s)",
+                cfg.id(), total, budget, messages.size() - shaped.size());
+        count(cfg, "truncated");
+        return shaped;
+    }
+
+    /** Null, gdy nawet same system + ostatnia wiadomość nie mieszczą się w budżecie. */
+    private static List<ChatDtos.Message> truncateOldestFirst(List<ChatDtos.Message> messages, int total, int budget) {
+        int last = messages.size() - 1;
+        boolean[] drop = new boolean[messages.size()];
+
+        for (int i = 0; i < last && total > budget; i++) {
+            ChatDtos.Message m = messages.get(i);
+            if (m != null && "system".equals(m.role())) continue;
+            drop[i] = true;
+            total -= TokenEstimator.estimate(m);
+        }
+        if (total > budget) return null;
+
+        List<ChatDtos.Message> out = new ArrayList<>(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            if (!drop[i]) out.add(messages.get(i));
+        }
+        return out;
+    }
+
+    private static String tooLong(StoredModel cfg, int total, int window, int reserve) {
+        return "Rozmowa (~%d tokenów) + max_tokens (%d) przekracza okno modelu '%s' (%d tokenów)."
+                .formatted(total, reserve, cfg.id(), window);
+    }
+
+    private PayloadTooLargeException reject(StoredModel cfg, String message) {
+        count(cfg, "rejected");
+        return new PayloadTooLargeException("CONTEXT_WINDOW_EXCEEDED", message);
+    }
+
+    private void count(StoredModel cfg, String result) {
+        meters.counter("herald.llm.preflight", "model", cfg.id(), "result", result).increment();
+    }
+}
@@ -1,12 +1,18 @@
 package com.acme.herald.ai;
 
+import com.acme.herald.config.LlmResponseCacheProperties;
 import com.acme.herald.domain.ChatDtos;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Locale;
 
 @RestController
 @RequestMapping(value = "/api/llm", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -17,15 +23,18 @@ import org.springframework.web.bind.annotation.*;
 )
 public class LlmProxyController {
     private final LlmProxyService service;
+    private final LlmResponseCacheProperties cacheProps;
 
     @PostMapping(value = "/chat", consumes = MediaType.APPLICATION_JSON_VALUE)
     @Operation(
             summary = "Chat (simplified reply)",
             description = "Executes a chat completion using a model identified by request.model (modelId from the admin catalog) and returns a simplified reply."
     )
-    public ResponseEntity<ChatDtos.ProxyReply> chat(@RequestBody ChatDtos.ChatRequest request) {
-        var out = service.chat(request);
-        return ResponseEntity.ok(out);
+    public ResponseEntity<ChatDtos.ProxyReply> chat(@RequestBody ChatDtos.ChatRequest request, HttpServletRequest http) {
+        var out = service.complete(request, bypassCache(http));
+        return ResponseEntity.ok()
+                .header(cacheProps.getHeader(), out.cacheStatus())
+                .body(service.toReply(out.response()));
     }
 
     @PostMapping(value = "/chat/completions", consumes = MediaType.APPLICATION_JSON_VALUE)
@@ -33,12 +42,47 @@ public class LlmProxyController {
             summary = "Chat (raw upstream response)",
             description = "Executes a chat completion using a model identified by request.model (modelId from the admin catalog) and returns the full upstream-like response structure."
     )
-    public ResponseEntity<ChatDtos.ChatResponse> chatRaw(@RequestBody ChatDtos.ChatRequest request) {
-        var out = service.chatRaw(request);
+    public ResponseEntity<ChatDtos.ChatResponse> chatRaw(@RequestBody ChatDtos.ChatRequest request, HttpServletRequest http) {
+        var out = service.complete(request, bypassCache(http));
+        return ResponseEntity.ok()
+                .header(cacheProps.getHeader(), out.cacheStatus())
+                .body(out.response());
+    }
+
+    @PostMapping(value = "/chat/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+            summary = "Chat batch (simplified replies)",
+            description = "Executes many independent chat requests in one call. Catalog and credentials are resolved once, items run concurrently (bounded per batch) and results are returned in request order with per-item errors."
+    )
+    public ResponseEntity<ChatDtos.BatchResponse> chatBatch(@RequestBody ChatDtos.BatchRequest request, HttpServletRequest http) {
+        var out = service.chatBatch(request, bypassCache(http));
         return ResponseEntity.ok(out);
     }
 
-    @RequestMapping(value = {"/chat", "/chat/completions"}, method = RequestMethod.OPTIONS)
+    @PostMapping(
+            value = "/chat/stream",
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = {MediaType.TEXT_EVENT_STREAM_VALUE, MediaType.APPLICATION_JSON_VALUE}
+    )
+    @Operation(
+            summary = "Chat (streaming)",
+            description = "Executes a chat completion with stream=true and relays the upstream OpenAI-compatible SSE (chat.completion.chunk events, terminated by data: [DONE]). Errors before the first chunk are returned as JSON; the response cache is not used."
+    )
+    public ResponseEntity<StreamingResponseBody> chatStream(@RequestBody ChatDtos.ChatRequest request) {
+        var upstream = service.stream(request);
+        StreamingResponseBody body = out -> {
+            try (upstream) {
+                upstream.transferTo(out);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                .header("X-Accel-Buffering", "no")
+                .body(body);
+    }
+
+    @RequestMapping(value = {"/chat", "/chat/completions", "/chat/batch", "/chat/stream"}, method = RequestMethod.OPTIONS)
     @Operation(
             summary = "CORS preflight (optional)",
             description = "Optional preflight endpoint for browsers."
@@ -46,4 +90,12 @@ public class LlmProxyController {
     public ResponseEntity<Void> options() {
         return ResponseEntity.noContent().build();
     }
+
+    /** "X-Herald-Cache: bypass" albo "Cache-Control: no-cache" -> pomiń odczyt z cache. */
+    private boolean bypassCache(HttpServletRequest http) {
+        String mode = http.getHeader(cacheProps.getHeader());
+        if (mode != null && mode.trim().equalsIgnoreCase("bypass")) return true;
+        String cc = http.getHeader(HttpHeaders.CACHE_CONTROL);
+        return cc != null && cc.toLowerCase(Locale.ROOT).contains("no-cache");
+    }
 }
@@ -1,27 +1,54 @@
 package com.acme.herald.ai;
 
 import com.acme.herald.auth.CryptoService;
+import com.acme.herald.auth.JiraAuthContext;
 import com.acme.herald.auth.MeService;
+import com.acme.herald.auth.TokenPayload;
+import com.acme.herald.config.LlmBatchProperties;
 import com.acme.herald.config.LlmConfigService;
 import com.acme.herald.config.LlmIntegrationDtos.StoredCatalog;
 import com.acme.herald.config.LlmIntegrationDtos.StoredGitHubCopilot;
 import com.acme.herald.config.LlmIntegrationDtos.StoredModel;
+import com.acme.herald.config.LlmResilienceProperties;
 import com.acme.herald.domain.ChatDtos;
+import com.acme.herald.web.error.PayloadTooLargeException;
+import com.acme.herald.web.error.ServiceUnavailableException;
+import com.acme.herald.web.error.TooManyRequestsException;
 import com.acme.herald.web.error.UnauthorizedException;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestClient;
 import tools.jackson.databind.JsonNode;
 import tools.jackson.databind.json.JsonMapper;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class LlmProxyService {
@@ -31,10 +58,22 @@ public class LlmProxyService {
     private final MeService meService;
     private final CryptoService crypto;
     private final JsonMapper jsonMapper;
+    private final LlmResilienceProperties resilience;
+    private final LlmHealthRegistry health;
+    private final LlmParamCompatService paramCompat;
+    private final LlmResponseCache responseCache;
+    private final LlmPreflight preflight;
+    private final LlmRateLimiter rateLimiter;
+    private final LlmMetrics metrics;
+    private final LlmBatchProperties batchProps;
+    private final ExecutorService fanOutExecutor;
+    private final LlmStreamingUpstream streamingUpstream;
 
     public ChatDtos.ProxyReply chat(ChatDtos.ChatRequest req) {
-        ChatDtos.ChatResponse res = chatRaw(req);
+        return toReply(chatRaw(req));
+    }
 
+    public ChatDtos.ProxyReply toReply(ChatDtos.ChatResponse res) {
         String reply = "";
         String finish = null;
         if (res.choices() != null && !res.choices().isEmpty()) {
@@ -52,18 +91,364 @@ public class LlmProxyService {
         return new ChatDtos.ProxyReply(reply, finish, res.usage(), raw);
     }
 
+    public ChatDtos.ChatResponse chatRaw(ChatDtos.ChatRequest req) {
+        return complete(req, false).response();
+    }
+
     /**
-     * Zwraca pełny ChatResponse upstream.
+     * stream=true: ta sama ścieżka co complete (limity, preflight, param-compat, failover), ale bez cache.
+     * Failover działa do pierwszego bajtu — zwracany strumień ma już nagłówki 2xx z upstreamu.
+     * Wywołujący przepisuje SSE (transferTo) i zamyka strumień.
+     */
+    public ChatStream stream(ChatDtos.ChatRequest req) {
+        CallContext ctx = newContext();
+        StoredModel primary = findEnabledModelOrThrow(ctx.stored(), req.model());
+        rateLimiter.checkUser();
+        return route(ctx, primary, req, true, this::openStream).response();
+    }
+
+    /**
+     * Otwarta odpowiedź SSE (OpenAI chat.completion.chunk) z upstreamu. Trzyma slot modelu
+     * (acquireModel) i permit bulkheadu do close() — limity obejmują całą generację, nie tylko nagłówki.
+     */
+    public static final class ChatStream implements AutoCloseable {
+        private final ClientHttpResponse response;
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile LlmRateLimiter.Permit permit = LlmRateLimiter.Permit.NOOP;
+
+        private ChatStream(ClientHttpResponse response) {
+            this.response = response;
+        }
+
+        /** Kopiuje body kawałkami, z flush po każdym — delty idą do klienta bez czekania na koniec. */
+        public void transferTo(OutputStream out) throws IOException {
+            try (InputStream in = response.getBody()) {
+                byte[] buf = new byte[8192];
+                int n;
+                while ((n = in.read(buf)) >= 0) {
+                    out.write(buf, 0, n);
+                    out.flush();
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            if (!closed.compareAndSet(false, true)) return;
+            try {
+                response.close();
+            } finally {
+                permit.close();
+            }
+        }
+    }
+
+    /** Strumień przejmuje slot modelu do swojego close(); true = wywołujący już go nie zwalnia. */
+    private static boolean handOff(Object res, LlmRateLimiter.Permit permit) {
+        if (!(res instanceof ChatStream s)) return false;
+        s.permit = permit;
+        return true;
+    }
+
+    /** Odpowiedź + status cache (HIT / MISS / BYPASS / OFF) do nagłówka odpowiedzi. */
+    public record Completion(ChatDtos.ChatResponse response, String cacheStatus) {}
+
+    /**
+     * Jak chatRaw, ale z cache odpowiedzi: tylko gdy cache jest włączony i wywołanie jest
+     * deterministyczne (temperature 0) albo model ma cacheCompletions=true.
+     * bypassCache pomija odczyt (świeża odpowiedź nadpisuje wpis).
+     */
+    public Completion complete(ChatDtos.ChatRequest req, boolean bypassCache) {
+        return complete(newContext(), req, bypassCache);
+    }
+
+    private Completion complete(CallContext ctx, ChatDtos.ChatRequest req, boolean bypassCache) {
+        StoredModel primary = findEnabledModelOrThrow(ctx.stored(), req.model());
+
+        Double temperature = effectiveTemperature(req, primary);
+        boolean cacheable = responseCache.enabled()
+                && (temperature == 0.0 || Boolean.TRUE.equals(primary.cacheCompletions()));
+        if (!cacheable) {
+            rateLimiter.checkUser();
+            return new Completion(route(ctx, primary, req, false, this::doPost).response(), LlmResponseCache.Status.OFF.name());
+        }
+
+        // token przed cache: user bez tokena Copilot nie dostaje cudzej odpowiedzi z cache
+        bearer(ctx, primary);
+        String scope = null;
+        if (usesUserToken(ctx.stored(), primary)) {
+            // odpowiedź na token usera jest per user — bez odcisku wywołującego nie cache'ujemy
+            scope = JiraAuthContext.callerFingerprintOrNull();
+            if (scope == null) {
+                rateLimiter.checkUser();
+                return new Completion(route(ctx, primary, req, false, this::doPost).response(), LlmResponseCache.Status.OFF.name());
+            }
+        }
+
+        String key = responseCache.key(scope, primary.id(), primary.model(), req.messages(), temperature, effectiveMaxTokens(req, primary));
+        LlmResponseCache.Status status;
+        if (bypassCache) {
+            responseCache.countBypass();
+            status = LlmResponseCache.Status.BYPASS;
+        } else {
+            ChatDtos.ChatResponse hit = responseCache.get(key);
+            if (hit != null) return new Completion(hit, LlmResponseCache.Status.HIT.name());
+            status = LlmResponseCache.Status.MISS;
+        }
+
+        // trafienie w cache nie zużywa limitu — liczymy dopiero przed upstreamem
+        rateLimiter.checkUser();
+        Served<ChatDtos.ChatResponse> served = route(ctx, primary, req, false, this::doPost);
+        // odpowiedź z modelu zapasowego nie trafia do cache primary
+        if (served.model() == primary) responseCache.put(key, served.response());
+        return new Completion(served.response(), status.name());
+    }
+
+    /**
+     * Wiele niezależnych promptów w jednym wywołaniu: katalog i tokeny rozwiązywane raz,
+     * pozycje wykonywane równolegle (limit per batch), wyniki w kolejności z błędami per pozycja.
+     */
+    public ChatDtos.BatchResponse chatBatch(ChatDtos.BatchRequest batch, boolean bypassCache) {
+        List<ChatDtos.ChatRequest> reqs = batch != null && batch.requests() != null ? batch.requests() : List.of();
+        if (reqs.isEmpty()) throw new IllegalArgumentException("Batch nie zawiera żadnych requestów.");
+        if (reqs.size() > batchProps.getMaxItems()) {
+            throw new IllegalArgumentException("Batch może zawierać maksymalnie %d requestów.".formatted(batchProps.getMaxItems()));
+        }
+
+        CallContext ctx = newContext();
+        // tokeny (Copilot user token = call do Jiry) i grupa raz, na wątku requestu; błąd wyjdzie per pozycja
+        reqs.stream().map(r -> r != null ? r.model() : null).distinct().forEach(modelId -> {
+            try {
+                bearer(ctx, findEnabledModelOrThrow(ctx.stored(), modelId));
+            } catch (RuntimeException ignored) {}
+        });
+        group(ctx);
+
+        int cap = batch.maxConcurrency() != null
+                ? Math.max(1, Math.min(batch.maxConcurrency(), batchProps.getMaxConcurrency()))
+                : Math.max(1, batchProps.getMaxConcurrency());
+        Semaphore permits = new Semaphore(cap);
+        TokenPayload auth = JiraAuthContext.currentOrNull();
+
+        List<Future<ChatDtos.BatchItem>> futures = new ArrayList<>(reqs.size());
+        for (int i = 0; i < reqs.size(); i++) {
+            int index = i;
+            ChatDtos.ChatRequest req = reqs.get(i);
+            futures.add(fanOutExecutor.submit(() ->
+                    JiraAuthContext.callAs(auth, () -> batchItem(ctx, index, req, permits, bypassCache))));
+        }
+
+        long deadline = System.nanoTime() + batchProps.getTimeout().toNanos();
+        List<ChatDtos.BatchItem> items = new ArrayList<>(reqs.size());
+        for (int i = 0; i < futures.size(); i++) {
+            Future<ChatDtos.BatchItem> f = futures.get(i);
+            try {
+                items.add(f.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                f.cancel(true);
+                items.add(batchError(i, "BATCH_TIMEOUT", "Przekroczono limit czasu batcha.", 504));
+            } catch (InterruptedException e) {
+                futures.forEach(x -> x.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Batch przerwany.", e);
+            } catch (ExecutionException e) {
+                items.add(batchError(i, "INTERNAL_ERROR", "Wystąpił błąd serwera.", 500));
+            }
+        }
+        return new ChatDtos.BatchResponse(items);
+    }
+
+    private ChatDtos.BatchItem batchItem(CallContext ctx, int index, ChatDtos.ChatRequest req,
+                                         Semaphore permits, boolean bypassCache) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return batchError(index, "BATCH_TIMEOUT", "Przekroczono limit czasu batcha.", 504);
+        }
+        try {
+            if (req == null) throw new IllegalArgumentException("Pusty request w batchu.");
+            Completion c = complete(ctx, req, bypassCache);
+            return new ChatDtos.BatchItem(index, toReply(c.response()), c.cacheStatus(), null);
+        } catch (RuntimeException e) {
+            return toBatchError(index, e);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /** Ten sam kod/status, jaki pozycja dostałaby jako osobne wywołanie. */
+    private static ChatDtos.BatchItem toBatchError(int index, RuntimeException e) {
+        if (e instanceof TooManyRequestsException t) return batchError(index, t.code(), t.getMessage(), 429);
+        if (e instanceof ServiceUnavailableException u) return batchError(index, u.code(), u.getMessage(), 503);
+        if (e instanceof PayloadTooLargeException p) return batchError(index, p.code(), p.getMessage(), 413);
+        if (e instanceof UnauthorizedException u) return batchError(index, "UNAUTHORIZED", u.getMessage(), 401);
+        if (e instanceof IllegalArgumentException a) return batchError(index, "BAD_REQUEST", a.getMessage(), 400);
+        if (e instanceof UpstreamException u) {
+            return batchError(index, "LLM_UPSTREAM_ERROR",
+                    "Upstream modelu '%s' zwrócił status %d.".formatted(u.modelId(), u.status()), 502);
+        }
+
+        log.error("LLM batch item {} failed", index, e);
+        return batchError(index, "INTERNAL_ERROR", "Wystąpił błąd serwera.", 500);
+    }
+
+    private static ChatDtos.BatchItem batchError(int index, String code, String message, int status) {
+        return new ChatDtos.BatchItem(index, null, null, new ChatDtos.BatchItemError(code, message, status));
+    }
+
+    private record Served<T>(T response, StoredModel model) {}
+
+    /** Jeden POST do upstreamu: zwykły (ChatResponse) albo otwarcie strumienia (ChatStream). */
+    @FunctionalInterface
+    private interface Sender<T> {
+        T send(StoredModel cfg, String url, String bearer, Map<String, Object> payload, String group);
+    }
+
+    /**
+     * Wspólne dla jednego wywołania (albo całego batcha): katalog, rozwiązane tokeny per model
+     * i tag grupy do metryk — żeby nie pobierać ich z Jiry per prompt.
+     */
+    private record CallContext(StoredCatalog stored, Map<String, String> bearers, AtomicReference<String> group) {}
+
+    private CallContext newContext() {
+        StoredCatalog stored = llmConfig.getStoredForRuntime(); // includes encrypted secrets
+        return new CallContext(stored, new ConcurrentHashMap<>(), new AtomicReference<>());
+    }
+
+    private String bearer(CallContext ctx, StoredModel cfg) {
+        String b = ctx.bearers().get(cfg.id());
+        if (b == null) {
+            b = resolveBearerToken(ctx.stored(), cfg);
+            ctx.bearers().put(cfg.id(), b);
+        }
+        return b;
+    }
+
+    private String group(CallContext ctx) {
+        String g = ctx.group().get();
+        if (g == null) {
+            g = metrics.userGroup();
+            ctx.group().set(g);
+        }
+        return g;
+    }
+
+    /**
+     * Zwraca pełny ChatResponse upstream (albo otwarty strumień dla stream=true).
      * req.model() = modelId z katalogu admina (np. "openai_gpt4o" / "copilot_gpt4o").
      *
      * Token NIE przychodzi z FE — jest dobierany po stronie proxy:
      * - zwykłe modele: tokenEnc z katalogu (project property)
      * - Copilot: user token z profilu lub global PAT z katalogu
+     *
+     * Failover: gdy primary ma otwarty breaker, jest w oknie 429 albo zwraca 5xx / timeout,
+     * próbujemy kolejno modeli z cfg.fallbackModelIds. 4xx (poza 429) wraca od razu do klienta.
      */
-    public ChatDtos.ChatResponse chatRaw(ChatDtos.ChatRequest req) {
-        StoredCatalog stored = llmConfig.getStoredForRuntime(); // includes encrypted secrets
-        StoredModel cfg = findEnabledModelOrThrow(stored, req.model());
+    private <T> Served<T> route(CallContext ctx, StoredModel primary, ChatDtos.ChatRequest req, boolean stream, Sender<T> sender) {
+        if (!resilience.isEnabled()) {
+            LlmRateLimiter.Permit permit = rateLimiter.acquireModel(primary.id());
+            boolean handedOff = false;
+            try {
+                T res = callModel(ctx, primary, req, stream, sender);
+                handedOff = handOff(res, permit);
+                return new Served<>(res, primary);
+            } finally {
+                if (!handedOff) permit.close();
+            }
+        }
+
+        RuntimeException last = null;
+        long retryAfter = 0;
+        TooManyRequestsException quota = null; // nasz limit per model (nie awaria upstreamu)
+        boolean onlyQuota = true;
+
+        for (StoredModel cfg : routeChain(ctx.stored(), primary)) {
+            boolean isPrimary = cfg == primary;
+            LlmModelHealth h = health.forModel(cfg.id());
+
+            long limited = h.rateLimitedForSeconds();
+            if (limited > 0) {
+                onlyQuota = false;
+                retryAfter = minPositive(retryAfter, limited);
+                log.info("LLM model '{}' rate-limited for {}s, skipping", cfg.id(), limited);
+                continue;
+            }
+
+            LlmRateLimiter.Permit permit;
+            try {
+                permit = rateLimiter.acquireModel(cfg.id());
+            } catch (TooManyRequestsException e) {
+                if (quota == null || e.retryAfterSeconds() < quota.retryAfterSeconds()) quota = e;
+                log.info("LLM model '{}' over local quota ({}), skipping", cfg.id(), e.code());
+                continue;
+            }
+
+            onlyQuota = false;
+            try {
+                h.breaker().acquirePermission();
+            } catch (ServiceUnavailableException e) {
+                permit.close();
+                retryAfter = minPositive(retryAfter, e.retryAfterSeconds());
+                log.info("LLM model '{}' circuit open, skipping", cfg.id());
+                continue;
+            }
+
+            long t0 = System.nanoTime();
+            boolean handedOff = false;
+            try {
+                T res = callModel(ctx, cfg, req, stream, sender);
+                handedOff = handOff(res, permit);
+                h.onSuccess(System.nanoTime() - t0);
+                if (!isPrimary) log.warn("LLM failover: '{}' served by '{}'", primary.id(), cfg.id());
+                return new Served<>(res, cfg);
+            } catch (UpstreamException e) {
+                long dt = System.nanoTime() - t0;
+                if (e.status() == 429) {
+                    Duration ra = e.retryAfterSeconds() > 0
+                            ? Duration.ofSeconds(e.retryAfterSeconds())
+                            : resilience.getDefaultRetryAfter();
+                    h.onRateLimited(ra);
+                    retryAfter = minPositive(retryAfter, ra.toSeconds());
+                } else if (e.status() >= 500 || e.status() < 0) {
+                    h.onFailure(dt);
+                } else {
+                    h.onClientError(dt);
+                    throw e;
+                }
+                last = e;
+            } catch (ResourceAccessException e) {
+                // I/O, connect/read timeout
+                h.onFailure(System.nanoTime() - t0);
+                last = e;
+            } catch (ServiceUnavailableException e) {
+                // nasz bulkhead per upstream — model nie jest winny
+                h.onIgnored();
+                retryAfter = minPositive(retryAfter, e.retryAfterSeconds());
+                last = e;
+            } catch (RuntimeException e) {
+                // konfiguracja (brak tokena, baseUrl...) — dla primary pokazujemy od razu
+                h.onIgnored();
+                if (isPrimary) throw e;
+                log.warn("LLM fallback '{}' misconfigured, skipping: {}", cfg.id(), e.getMessage());
+                last = e;
+            } finally {
+                if (!handedOff) permit.close();
+            }
+            log.warn("LLM model '{}' failed: {}", cfg.id(), last.getMessage());
+        }
+
+        if (quota != null && onlyQuota) throw quota;
 
+        throw new ServiceUnavailableException(
+                "LLM_UNAVAILABLE",
+                "Model '%s' jest chwilowo niedostępny%s. Spróbuj ponownie za chwilę."
+                        .formatted(primary.id(), hasFallbacks(primary) ? " (zapasowe modele również)" : ""),
+                Math.max(1, retryAfter)
+        );
+    }
+
+    private <T> T callModel(CallContext ctx, StoredModel cfg, ChatDtos.ChatRequest req, boolean stream, Sender<T> sender) {
         String upstreamModelName = (cfg.model() == null ? "" : cfg.model().trim());
         if (upstreamModelName.isEmpty()) {
             throw new IllegalArgumentException("Model '%s' nie ma ustawionego pola model (upstream)".formatted(cfg.id()));
@@ -71,34 +456,51 @@ public class LlmProxyService {
 
         String url = resolveChatCompletionsUrl(cfg);
 
-        String bearer = resolveBearerToken(stored, cfg);
+        String bearer = bearer(ctx, cfg);
 
-        Double temperature = req.temperature() != null ? req.temperature()
-                : (cfg.defaults() != null ? cfg.defaults().temperature() : null);
-        if (temperature == null) temperature = 0.2;
-
-        Integer maxTokens = req.max_tokens() != null ? req.max_tokens()
-                : (cfg.defaults() != null ? cfg.defaults().maxTokens() : null);
+        Double temperature = effectiveTemperature(req, cfg);
+        Integer maxTokens = effectiveMaxTokens(req, cfg);
 
         Map<String, Object> payload = new HashMap<>();
         payload.put("model", upstreamModelName);
-        payload.put("messages", req.messages());
-        payload.put("stream", false);
+        // pre-flight: rozmowa + max_tokens musi się zmieścić w contextWindowTokens tego modelu
+        payload.put("messages", preflight.shape(cfg, req.messages(), maxTokens));
+        payload.put("stream", stream);
 
         if (temperature != null) payload.put("temperature", temperature);
         if (maxTokens != null) payload.put("max_tokens", maxTokens);
 
-        boolean appliedMaxTokensFix = false;
-        boolean removedTemperature = false;
+        String group = group(ctx);
+
+        // przepisania nauczone wcześniej (bez 400 + retry)
+        var known = paramCompat.apply(cfg, payload);
+        boolean appliedMaxTokensFix = known.maxCompletionTokens();
+        boolean removedTemperature = known.dropTemperature();
 
         for (int attempt = 1; attempt <= 3; attempt++) {
             try {
-                return doPost(cfg, url, bearer, payload);
+                T res = sender.send(cfg, url, bearer, payload, group);
+                if (appliedMaxTokensFix != known.maxCompletionTokens() || removedTemperature != known.dropTemperature()) {
+                    paramCompat.learn(cfg, appliedMaxTokensFix, removedTemperature);
+                }
+                return res;
             } catch (UpstreamException e) {
                 if (e.status() != 400) throw e;
 
                 String unsupportedParam = detectUnsupportedParam(e.body());
 
+                if (known.maxCompletionTokens()
+                        && "max_completion_tokens".equals(unsupportedParam)
+                        && payload.containsKey("max_completion_tokens")) {
+                    // nauczone przepisanie już nie pasuje -> wracamy do max_tokens i zapominamy
+                    payload.put("max_tokens", payload.remove("max_completion_tokens"));
+                    paramCompat.forget(cfg);
+                    metrics.paramRetry(cfg.id(), "max_completion_tokens");
+                    known = LlmParamCompatService.ParamCompat.NONE;
+                    appliedMaxTokensFix = false;
+                    continue;
+                }
+
                 if (!appliedMaxTokensFix
                         && "max_tokens".equals(unsupportedParam)
                         && payload.containsKey("max_tokens")) {
@@ -107,6 +509,7 @@ public class LlmProxyService {
                     if (mt != null) payload.put("max_completion_tokens", mt);
 
                     appliedMaxTokensFix = true;
+                    metrics.paramRetry(cfg.id(), "max_tokens");
                     continue;
                 }
 
@@ -116,6 +519,7 @@ public class LlmProxyService {
 
                     payload.remove("temperature");
                     removedTemperature = true;
+                    metrics.paramRetry(cfg.id(), "temperature");
                     continue;
                 }
 
@@ -137,6 +541,12 @@ public class LlmProxyService {
      *    - else -> global PAT z katalogu (stored.githubCopilot.patEnc)
      * - else -> token modelu z katalogu (cfg.tokenEnc)
      */
+    private static boolean usesUserToken(StoredCatalog stored, StoredModel cfg) {
+        return Boolean.TRUE.equals(cfg.githubCopilotModel())
+                && stored.githubCopilot() != null
+                && Boolean.TRUE.equals(stored.githubCopilot().useUserToken());
+    }
+
     private String resolveBearerToken(StoredCatalog stored, StoredModel cfg) {
         boolean isCopilotModel = Boolean.TRUE.equals(cfg.githubCopilotModel());
 
@@ -190,13 +600,71 @@ public class LlmProxyService {
                 .orElseThrow(() -> new IllegalArgumentException("Model '%s' nie istnieje lub jest wyłączony".formatted(id)));
     }
 
+    private static Double effectiveTemperature(ChatDtos.ChatRequest req, StoredModel cfg) {
+        Double temperature = req.temperature() != null ? req.temperature()
+                : (cfg.defaults() != null ? cfg.defaults().temperature() : null);
+        return temperature != null ? temperature : 0.2;
+    }
+
+    private static Integer effectiveMaxTokens(ChatDtos.ChatRequest req, StoredModel cfg) {
+        return req.max_tokens() != null ? req.max_tokens()
+                : (cfg.defaults() != null ? cfg.defaults().maxTokens() : null);
+    }
+
+    /** Primary + włączone modele z fallbackModelIds (bez duplikatów, max resilience.maxFallbacks). */
+    private List<StoredModel> routeChain(StoredCatalog stored, StoredModel primary) {
+        List<StoredModel> chain = new ArrayList<>();
+        chain.add(primary);
+        if (!hasFallbacks(primary)) return chain;
+
+        List<StoredModel> models = stored.models() != null ? stored.models() : List.of();
+        for (String fid : primary.fallbackModelIds()) {
+            if (chain.size() > resilience.getMaxFallbacks()) break;
+            models.stream()
+                    .filter(m -> m.id() != null && m.id().trim().equals(fid))
+                    .filter(m -> Boolean.TRUE.equals(m.enabled()))
+                    .filter(m -> !chain.contains(m))
+                    .findFirst()
+                    .ifPresent(chain::add);
+        }
+        return chain;
+    }
+
+    private static boolean hasFallbacks(StoredModel cfg) {
+        return cfg.fallbackModelIds() != null && !cfg.fallbackModelIds().isEmpty();
+    }
+
+    private static long minPositive(long current, long candidate) {
+        if (candidate <= 0) return current;
+        return current <= 0 ? candidate : Math.min(current, candidate);
+    }
+
     // ─────────────────────────────────────────────────────────────────
     // HTTP call
     // ─────────────────────────────────────────────────────────────────
 
-    private ChatDtos.ChatResponse doPost(StoredModel cfg, String url, String bearer, Map<String, Object> payload) {
+    private ChatDtos.ChatResponse doPost(StoredModel cfg, String url, String bearer, Map<String, Object> payload, String group) {
+        long t0 = System.nanoTime();
+        String status = "io_error";
+        try {
+            ResponseEntity<ChatDtos.ChatResponse> res = post(cfg, url, bearer, payload, group);
+            status = String.valueOf(res.getStatusCode().value());
+            ChatDtos.ChatResponse body = res.getBody();
+            if (body != null) metrics.usage(cfg.id(), group, body.usage());
+            return body;
+        } catch (UpstreamException e) {
+            status = String.valueOf(e.status());
+            throw e;
+        } finally {
+            metrics.upstreamCall(cfg.id(), group, status, System.nanoTime() - t0);
+        }
+    }
+
+    private ResponseEntity<ChatDtos.ChatResponse> post(StoredModel cfg, String url, String bearer, Map<String, Object> payload, String group) {
         return rest.post()
                 .uri(url)
+                .attribute(LlmMetrics.ATTR_MODEL, cfg.id())
+                .attribute(LlmMetrics.ATTR_GROUP, group)
                 .contentType(MediaType.APPLICATION_JSON)
                 .accept(MediaType.APPLICATION_JSON)
                 .header("Authorization", "Bearer " + bearer)
@@ -205,7 +673,26 @@ public class LlmProxyService {
                 .onStatus(status -> status.isError(), (request, response) -> {
                     throw toUpstreamException(cfg, response);
                 })
-                .body(ChatDtos.ChatResponse.class);
+                .toEntity(ChatDtos.ChatResponse.class);
+    }
+
+    /** Jak doPost, ale zwraca otwarty strumień po nagłówkach 2xx; latencja w metryce = do nagłówków. */
+    private ChatStream openStream(StoredModel cfg, String url, String bearer, Map<String, Object> payload, String group) {
+        long t0 = System.nanoTime();
+        String status = "io_error";
+        try {
+            ClientHttpResponse response = streamingUpstream.open(url, bearer, payload, cfg.id(), group);
+            int code = safeStatus(response);
+            status = String.valueOf(code);
+            if (code < 200 || code >= 300) {
+                try (response) {
+                    throw toUpstreamException(cfg, response);
+                }
+            }
+            return new ChatStream(response);
+        } finally {
+            metrics.upstreamCall(cfg.id(), group, status, System.nanoTime() - t0);
+        }
     }
 
     private String detectUnsupportedParam(String exceptionBody) {
@@ -243,7 +730,22 @@ public class LlmProxyService {
         String msg = "LLM upstream error: modelId=%s status=%d body=%s"
                 .formatted(cfg.id(), status, body);
 
-        return new UpstreamException(msg, cfg.id(), status, body);
+        return new UpstreamException(msg, cfg.id(), status, body, parseRetryAfter(response.getHeaders()));
+    }
+
+    /** Retry-After: liczba sekund albo HTTP-date; 0 gdy brak / nieczytelny. */
+    private static long parseRetryAfter(HttpHeaders headers) {
+        String v = headers.getFirst(HttpHeaders.RETRY_AFTER);
+        if (v == null || v.isBlank()) return 0;
+        try {
+            return Math.max(0, Long.parseLong(v.trim()));
+        } catch (NumberFormatException ignored) {}
+        try {
+            long ms = ZonedDateTime.parse(v.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli()
+                    - System.currentTimeMillis();
+            return Math.max(0, ms / 1000);
+        } catch (Exception ignored) {}
+        return 0;
     }
 
     private String safeBody(ClientHttpResponse response) {
@@ -267,16 +769,19 @@ public class LlmProxyService {
         private final String modelId;
         private final int status;
         private final String body;
+        private final long retryAfterSeconds;
 
-        UpstreamException(String message, String modelId, int status, String body) {
+        UpstreamException(String message, String modelId, int status, String body, long retryAfterSeconds) {
             super(message);
             this.modelId = modelId;
             this.status = status;
             this.body = body;
+            this.retryAfterSeconds = retryAfterSeconds;
         }
 
         public String modelId() { return modelId; }
         public int status() { return status; }
         public String body() { return body; }
+        public long retryAfterSeconds() { return retryAfterSeconds; }
     }
 }
@@ -0,0 +1,144 @@
+package com.acme.herald.ai;
+
+import com.acme.herald.auth.JiraAuthContext;
+import com.acme.herald.config.LlmRateLimitProperties;
+import com.acme.herald.domain.JiraModels;
+import com.acme.herald.provider.JiraProvider;
+import com.acme.herald.resilience.TokenBucket;
+import com.acme.herald.web.error.TooManyRequestsException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Limity LLM w pamięci instancji:
+ * - token bucket per użytkownik Jiry (żeby jeden skrypt nie wyczerpał wspólnego PAT / limitu modelu;
+ *   kluczem jest user z /myself, nie token — kilka PAT jednego usera nie mnoży limitu),
+ * - token bucket per modelId,
+ * - max in-flight per modelId.
+ * Przekroczenie -> TooManyRequestsException (429 + Retry-After).
+ */
+@Component
+class LlmRateLimiter {
+    private final LlmRateLimitProperties props;
+    private final JiraProvider jira;
+    private final MeterRegistry meters;
+    private final Map<String, TokenBucket> users = new ConcurrentHashMap<>();
+    // hash tokena -> użytkownik Jiry; bez tego każdy call LLM kosztowałby getMe
+    private final Map<String, Identity> identities = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> models = new ConcurrentHashMap<>();
+    private final Map<String, Semaphore> inFlight = new ConcurrentHashMap<>();
+
+    LlmRateLimiter(LlmRateLimitProperties props, JiraProvider jira, MeterRegistry meters) {
+        this.props = props;
+        this.jira = jira;
+        this.meters = meters;
+        meters.gauge("herald.llm.rate_limit.user_buckets", users, Map::size);
+    }
+
+    /** Kubełek bieżącego użytkownika (po cache, przed upstreamem). */
+    void checkUser() {
+        if (!props.isEnabled()) return;
+
+        String caller = JiraAuthContext.callerFingerprintOrNull();
+        String user = caller == null ? "anonymous" : user(caller);
+
+        if (users.size() > props.getMaxUserBuckets()) {
+            users.values().removeIf(TokenBucket::isFull);
+        }
+
+        var cfg = props.getPerUser();
+        long waitNanos = users.computeIfAbsent(user, k -> new TokenBucket(cfg.getCapacity(), cfg.getRefillPerMinute()))
+                .tryTake();
+        if (waitNanos > 0) {
+            count("user", null, "limited");
+            long retryAfter = TokenBucket.retryAfterSeconds(waitNanos);
+            throw new TooManyRequestsException(
+                    "LLM_USER_RATE_LIMIT",
+                    "Za dużo zapytań do LLM. Spróbuj ponownie za %ds.".formatted(retryAfter),
+                    retryAfter
+            );
+        }
+        count("user", null, "allowed");
+    }
+
+    /** Użytkownik Jiry dla tokena (cache z TTL); /myself bez key i name -> sam token. */
+    private String user(String caller) {
+        long now = System.nanoTime();
+        Identity id = identities.get(caller);
+        if (id != null && id.expiresAtNanos() - now > 0) return id.user();
+
+        JiraModels.UserResponse me;
+        try {
+            me = jira.getMe();
+        } catch (RuntimeException e) {
+            // Jira chwilowo niedostępna — limit per token, spróbujemy przy następnym callu
+            return "t:" + caller;
+        }
+        String name = me == null ? null : me.key() != null && !me.key().isBlank() ? me.key() : me.name();
+        String user = name == null || name.isBlank() ? "t:" + caller : "u:" + name;
+
+        if (identities.size() >= props.getMaxUserBuckets()) identities.values().removeIf(x -> x.expiresAtNanos() - now <= 0);
+        identities.put(caller, new Identity(user, now + props.getUserResolveTtl().toNanos()));
+        return user;
+    }
+
+    /** Kubełek + slot in-flight dla modelu; slot zwalnia Permit.close(). */
+    Permit acquireModel(String modelId) {
+        if (!props.isEnabled()) return Permit.NOOP;
+
+        var cfg = props.getPerModel();
+        long waitNanos = models.computeIfAbsent(modelId, k -> new TokenBucket(cfg.getCapacity(), cfg.getRefillPerMinute()))
+                .tryTake();
+        if (waitNanos > 0) {
+            count("model", modelId, "limited");
+            throw new TooManyRequestsException(
+                    "LLM_MODEL_RATE_LIMIT",
+                    "Limit zapytań dla modelu '%s' wyczerpany.".formatted(modelId),
+                    TokenBucket.retryAfterSeconds(waitNanos)
+            );
+        }
+        count("model", modelId, "allowed");
+
+        int max = props.getMaxInFlightPerModel();
+        if (max <= 0) return Permit.NOOP;
+
+        Semaphore s = inFlight.computeIfAbsent(modelId, k -> newInFlight(k, max));
+        if (!s.tryAcquire()) {
+            count("in_flight", modelId, "limited");
+            throw new TooManyRequestsException(
+                    "LLM_MODEL_BUSY",
+                    "Model '%s' obsługuje już maksymalną liczbę równoległych zapytań (%d).".formatted(modelId, max),
+                    1
+            );
+        }
+        return s::release;
+    }
+
+    private Semaphore newInFlight(String modelId, int max) {
+        Semaphore s = new Semaphore(max);
+        meters.gauge("herald.llm.rate_limit.in_flight", Tags.of("model", modelId), s, x -> max - x.availablePermits());
+        return s;
+    }
+
+    private void count(String bucket, String modelId, String result) {
+        meters.counter("herald.llm.rate_limit",
+                "bucket", bucket,
+                "model", modelId != null ? modelId : "-",
+                "result", result).increment();
+    }
+
+    private record Identity(String user, long expiresAtNanos) {}
+
+    @FunctionalInterface
+    interface Permit extends AutoCloseable {
+        Permit NOOP = () -> {};
+
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,98 @@
+package com.acme.herald.ai;
+
+import com.acme.herald.config.LlmResponseCacheProperties;
+import com.acme.herald.domain.ChatDtos;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Cache odpowiedzi LLM dla deterministycznych wywołań (LRU + TTL, w pamięci instancji).
+ * Klucz: sha-256 z zakresu (odcisk usera dla modeli na tokenie usera, inaczej pusty) + modelId
+ * + model upstream + messages + temperature + max_tokens.
+ * O tym, CZY cache'ować, decyduje LlmProxyService (temperature 0 albo cacheCompletions w modelu).
+ */
+@Component
+class LlmResponseCache {
+
+    enum Status {HIT, MISS, BYPASS, OFF}
+
+    private final LlmResponseCacheProperties props;
+    private final JsonMapper jsonMapper;
+    private final MeterRegistry meters;
+    private final LinkedHashMap<String, Entry> lru = new LinkedHashMap<>(256, 0.75f, true);
+
+    private record Entry(ChatDtos.ChatResponse response, long expiresAt) {}
+
+    LlmResponseCache(LlmResponseCacheProperties props, JsonMapper jsonMapper, MeterRegistry meters) {
+        this.props = props;
+        this.jsonMapper = jsonMapper;
+        this.meters = meters;
+        meters.gauge("herald.llm.response_cache.size", this, LlmResponseCache::size);
+    }
+
+    boolean enabled() {
+        return props.isEnabled() && props.getMaxEntries() > 0;
+    }
+
+    String key(String scope, String modelId, String upstreamModel, List<ChatDtos.Message> messages, Double temperature, Integer maxTokens) {
+        try {
+            var md = MessageDigest.getInstance("SHA-256");
+            md.update(jsonMapper.writeValueAsBytes(List.of(
+                    nz(scope),
+                    nz(modelId),
+                    nz(upstreamModel),
+                    messages != null ? messages : List.of(),
+                    temperature != null ? temperature : "",
+                    maxTokens != null ? maxTokens : ""
+            )));
+            return HexFormat.of().formatHex(md.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    synchronized ChatDtos.ChatResponse get(String key) {
+        Entry e = lru.get(key);
+        if (e != null && e.expiresAt() - System.nanoTime() <= 0) {
+            lru.remove(key);
+            e = null;
+        }
+        count(e != null ? "hit" : "miss");
+        return e != null ? e.response() : null;
+    }
+
+    synchronized void put(String key, ChatDtos.ChatResponse response) {
+        if (response == null) return;
+        lru.put(key, new Entry(response, System.nanoTime() + props.getTtl().toNanos()));
+        while (lru.size() > props.getMaxEntries()) {
+            var it = lru.entrySet().iterator();
+            it.next();
+            it.remove();
+            count("evicted");
+        }
+    }
+
+    void countBypass() {
+        count("bypass");
+    }
+
+    synchronized int size() {
+        return lru.size();
+    }
+
+    private void count(String result) {
+        meters.counter("herald.llm.response_cache", "result", result).increment();
+    }
+
+    private static String nz(String s) {
+        return s == null ? "" : s;
+    }
+}
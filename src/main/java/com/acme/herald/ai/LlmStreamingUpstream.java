@@ -0,0 +1,34 @@
+package com.acme.herald.ai;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.util.Map;
+
+/**
+ * POST stream=true do upstreamu LLM na kliencie bez bufferingu (llmStreamingRestClient).
+ * Odpowiedź zostaje otwarta — status sprawdza i body przepisuje/zamyka LlmProxyService.
+ */
+@Component
+class LlmStreamingUpstream {
+    private final RestClient rest;
+
+    LlmStreamingUpstream(@Qualifier("llmStreamingRestClient") RestClient rest) {
+        this.rest = rest;
+    }
+
+    ClientHttpResponse open(String url, String bearer, Map<String, Object> payload, String modelId, String group) {
+        return rest.post()
+                .uri(url)
+                .attribute(LlmMetrics.ATTR_MODEL, modelId)
+                .attribute(LlmMetrics.ATTR_GROUP, group)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.TEXT_EVENT_STREAM, MediaType.APPLICATION_JSON)
+                .header("Authorization", "Bearer " + bearer)
+                .body(payload)
+                .exchange((request, response) -> response, false);
+    }
+}
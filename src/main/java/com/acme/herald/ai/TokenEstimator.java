@@ -0,0 +1,74 @@
+package com.acme.herald.ai;
+
+import com.acme.herald.domain.ChatDtos;
+
+import java.util.List;
+
+/**
+ * Szybka, lokalna estymacja liczby tokenów (bez tokenizera modelu).
+ *
+ * Heurystyka zbliżona do BPE: ciąg liter/cyfr ASCII ~ 1 token na 4 znaki, inne litery
+ * (np. polskie znaki) ~ 1 na 2, CJK 1 na znak, interpunkcja 1 na znak; whitespace nic.
+ * Do tego stały narzut na wiadomość jak w chat completions. Raczej zawyża niż zaniża.
+ */
+final class TokenEstimator {
+    private TokenEstimator() {}
+
+    /** Narzut formatu czatu: na wiadomość i na "priming" odpowiedzi. */
+    static final int PER_MESSAGE = 4;
+    static final int REPLY_PRIMING = 3;
+
+    static int estimate(List<ChatDtos.Message> messages) {
+        if (messages == null || messages.isEmpty()) return REPLY_PRIMING;
+        int total = REPLY_PRIMING;
+        for (ChatDtos.Message m : messages) total += estimate(m);
+        return total;
+    }
+
+    static int estimate(ChatDtos.Message m) {
+        if (m == null) return 0;
+        return PER_MESSAGE + estimate(m.role()) + estimate(m.content());
+    }
+
+    static int estimate(String text) {
+        if (text == null || text.isEmpty()) return 0;
+
+        int tokens = 0;
+        int asciiRun = 0;
+        int otherRun = 0;
+
+        for (int i = 0; i < text.length(); ) {
+            int cp = text.codePointAt(i);
+            i += Character.charCount(cp);
+
+            if (cp < 128 && Character.isLetterOrDigit(cp)) {
+                asciiRun++;
+                continue;
+            }
+            if (Character.isLetter(cp) && !isCjk(cp)) {
+                otherRun++;
+                continue;
+            }
+
+            tokens += flush(asciiRun, otherRun);
+            asciiRun = 0;
+            otherRun = 0;
+
+            if (Character.isWhitespace(cp)) continue;
+            tokens++; // interpunkcja, CJK, emoji...
+        }
+        return tokens + flush(asciiRun, otherRun);
+    }
+
+    private static int flush(int asciiRun, int otherRun) {
+        return (asciiRun + 3) / 4 + (otherRun + 1) / 2;
+    }
+
+    private static boolean isCjk(int cp) {
+        Character.UnicodeScript s = Character.UnicodeScript.of(cp);
+        return s == Character.UnicodeScript.HAN
+                || s == Character.UnicodeScript.HIRAGANA
+                || s == Character.UnicodeScript.KATAKANA
+                || s == Character.UnicodeScript.HANGUL;
+    }
+}
@@ -15,6 +15,8 @@ public class AuthService {
     private final CryptoService crypto;
     private final JiraProvider jira;
     private final JsonMapper jsonMapper;
+    private final PermissionService permissions;
+    private final CopilotTokenCache copilotTokens;
 
     public AuthDtos.WrapRes wrap(AuthDtos.WrapReq req) {
         int days = clampDays(req.ttlDays(), props.getMaxAgeDays());
@@ -33,6 +35,8 @@ public class AuthService {
     }
 
     public void revokeCurrentPat() {
+        permissions.invalidateCurrentCaller();
+        copilotTokens.invalidateCurrentCaller();
         jira.revokeCurrentPat();
     }
 
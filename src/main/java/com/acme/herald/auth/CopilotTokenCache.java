@@ -0,0 +1,77 @@
+package com.acme.herald.auth;
+
+import com.acme.herald.config.CopilotTokenCacheProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Cache tokena GitHub Copilot z profilu użytkownika między requestami.
+ *
+ * Klucz: caller (hash tokena Jiry). Wartość: userKey + tokenEnc w postaci z issue property
+ * (AES-GCM) — plaintext nie leży w pamięci, deszyfruje MeService przy użyciu. Brak tokena
+ * też jest cache'owany. Bez tego każda tura czatu Copilot to getMe + config + getIssueProperty.
+ */
+@Component
+class CopilotTokenCache {
+    private final CopilotTokenCacheProperties props;
+
+    private final Map<String, Entry> cache = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+
+    CopilotTokenCache(CopilotTokenCacheProperties props, MeterRegistry meters) {
+        this.props = props;
+        this.hits = meters.counter("herald.llm.copilot_token.cache", "result", "hit");
+        this.misses = meters.counter("herald.llm.copilot_token.cache", "result", "miss");
+        meters.gaugeMapSize("herald.llm.copilot_token.cache.size", List.of(), cache);
+    }
+
+    record Loaded(String userKey, String tokenEnc) {}
+
+    /** tokenEnc bieżącego wywołującego (null = brak tokena w profilu). */
+    String tokenEncOrLoad(Supplier<Loaded> loader) {
+        String caller = JiraAuthContext.callerFingerprintOrNull();
+        if (!props.isEnabled() || caller == null) {
+            return loader.get().tokenEnc();
+        }
+
+        long now = System.nanoTime();
+        Entry e = cache.get(caller);
+        if (e != null && e.expiresAtNanos() - now > 0) {
+            hits.increment();
+            return e.tokenEnc();
+        }
+
+        misses.increment();
+        Loaded fresh = loader.get();
+        evictIfFull(now);
+        cache.put(caller, new Entry(fresh.userKey(), fresh.tokenEnc(), now + props.getTtl().toNanos()));
+        return fresh.tokenEnc();
+    }
+
+    /** Wszystkie sesje danego usera (zmiana profilu). */
+    void invalidateUser(String userKey) {
+        if (userKey != null) cache.values().removeIf(e -> userKey.equals(e.userKey()));
+    }
+
+    /** Bieżący wywołujący (np. revoke PAT / logout). */
+    void invalidateCurrentCaller() {
+        String caller = JiraAuthContext.callerFingerprintOrNull();
+        if (caller != null) cache.remove(caller);
+    }
+
+    private void evictIfFull(long now) {
+        if (cache.size() < props.getMaxEntries()) return;
+        cache.values().removeIf(e -> e.expiresAtNanos() - now <= 0);
+        // nadal pełno -> prosty reset, cache i tak krótko żyje
+        if (cache.size() >= props.getMaxEntries()) cache.clear();
+    }
+
+    private record Entry(String userKey, String tokenEnc, long expiresAtNanos) {}
+}
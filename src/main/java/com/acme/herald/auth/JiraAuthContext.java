@@ -0,0 +1,91 @@
+package com.acme.herald.auth;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.function.Supplier;
+
+/**
+ * Jawny nośnik kontekstu auth (TokenPayload) dla calli do Jiry.
+ *
+ * StatelessAuthFilter wiąże kontekst na czas obsługi requestu (bind), a kod działający
+ * na innych wątkach (fan-out, prefetch, joby w tle) przekazuje go sam: callAs / wrap
+ * albo JiraProvider.withAuth(tp). Provider nie zależy od HttpServletRequest.
+ */
+public final class JiraAuthContext {
+    private JiraAuthContext() {}
+
+    private static final ThreadLocal<TokenPayload> BOUND = new ThreadLocal<>();
+
+    /** TokenPayload związany z bieżącym wątkiem albo null. */
+    public static TokenPayload currentOrNull() {
+        return BOUND.get();
+    }
+
+    /** TokenPayload związany z bieżącym wątkiem; brak -> IllegalStateException. */
+    public static TokenPayload current() {
+        TokenPayload tp = BOUND.get();
+        if (tp == null) throw new IllegalStateException("NO_AUTH_CONTEXT");
+        return tp;
+    }
+
+    /**
+     * Wiąże kontekst z bieżącym wątkiem do zamknięcia zwróconego Scope
+     * (try-with-resources); poprzedni kontekst jest przywracany.
+     */
+    public static Scope bind(TokenPayload tp) {
+        TokenPayload prev = BOUND.get();
+        BOUND.set(tp);
+        return () -> {
+            if (prev != null) BOUND.set(prev);
+            else BOUND.remove();
+        };
+    }
+
+    /** Wykonuje body z jawnie związanym kontekstem auth. */
+    public static <T> T callAs(TokenPayload tp, Supplier<T> body) {
+        try (Scope ignored = bind(tp)) {
+            return body.get();
+        }
+    }
+
+    public static void runAs(TokenPayload tp, Runnable body) {
+        try (Scope ignored = bind(tp)) {
+            body.run();
+        }
+    }
+
+    /** Opakowuje zadanie tak, żeby na dowolnym wątku wykonało się z podanym kontekstem auth. */
+    public static <T> Supplier<T> wrap(TokenPayload tp, Supplier<T> body) {
+        return () -> callAs(tp, body);
+    }
+
+    public static Runnable wrap(TokenPayload tp, Runnable body) {
+        return () -> runAs(tp, body);
+    }
+
+    /**
+     * Stabilny, nieodwracalny identyfikator "wywołującego" (hash tokena) — klucz do cache per user
+     * bez dodatkowego calla /myself. Null gdy brak auth.
+     */
+    public static String callerFingerprintOrNull() {
+        return fingerprint(currentOrNull());
+    }
+
+    public static String fingerprint(TokenPayload tp) {
+        if (tp == null || tp.token() == null || tp.token().isBlank()) return null;
+        try {
+            byte[] h = MessageDigest.getInstance("SHA-256").digest(tp.token().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(h, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -2,11 +2,15 @@ package com.acme.herald.auth;
 
 import com.acme.herald.config.JiraConfigService;
 import com.acme.herald.config.JiraProperties;
+import com.acme.herald.config.MeContextProperties;
 import com.acme.herald.domain.JiraModels;
 import com.acme.herald.domain.dto.MeContextDtos;
 import com.acme.herald.provider.JiraProvider;
+import com.acme.herald.provider.JiraRequestLedger;
+import com.acme.herald.web.error.ServiceUnavailableException;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import tools.jackson.databind.JsonNode;
 import tools.jackson.databind.node.JsonNodeFactory;
@@ -15,10 +19,19 @@ import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.Base64;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class MeService {
@@ -32,17 +45,50 @@ public class MeService {
     private final JiraProperties jiraProps;
     private final JiraConfigService jiraConfigService;
     private final CryptoService crypto;
-
+    private final PermissionService permissions;
+    private final MeContextProperties contextProps;
+    private final ExecutorService fanOutExecutor;
+    private final CopilotTokenCache copilotTokens;
+
+    /**
+     * Pierwszy call SPA po starcie. getMe / permissions / runtime config idą równolegle
+     * (virtual threads, auth przekazany jawnie), profil startuje, gdy są user + config.
+     * Wolny profil nie blokuje odpowiedzi — po profileTimeout wracamy z pustymi preferencjami.
+     */
     public MeContextDtos.MeContext context() {
-        var user = jira.getMe();
-        var perms = jira.getMyPermissions(jiraProps.getProjectKey(), null, null);
+        TokenPayload auth = JiraAuthContext.currentOrNull();
+        // memo requestu (getMe / uprawnienia) wspólne z wątkami fan-outu
+        JiraRequestLedger ledger = JiraRequestLedger.currentOrNull();
+        long deadline = System.nanoTime() + contextProps.getTimeout().toNanos();
+
+        var userF = fork(auth, ledger, jira::getMe);
+        var permsF = fork(auth, ledger, () -> permissions.getMyPermissions(jiraProps.getProjectKey(), null, null));
+        var cfgF = fork(auth, ledger, jiraConfigService::getForRuntime);
+
+        var profileF = userF.thenCombineAsync(cfgF,
+                (user, cfg) -> JiraAuthContext.callAs(auth, () -> JiraRequestLedger.callWith(ledger,
+                        () -> loadProfilePrefs(user, cfg != null ? cfg.userPrefsIssueKey() : null))),
+                fanOutExecutor);
+
+        JiraModels.UserResponse user;
+        JiraModels.PermissionsResponse perms;
+        try {
+            user = await(userF, deadline);
+            perms = await(permsF, deadline);
+        } catch (RuntimeException e) {
+            // timeout / błąd jednej gałęzi — pozostałe nie trzymają dalej calli do Jiry
+            for (var f : List.of(userF, permsF, cfgF, profileF)) f.cancel(true);
+            throw e;
+        }
 
-        var profile = loadProfilePrefs(user);
+        long profileDeadline = Math.min(deadline, System.nanoTime() + contextProps.getProfileTimeout().toNanos());
+        var profile = awaitOrNull(profileF, profileDeadline);
+        if (profile == null) profile = emptyPrefs();
 
         return new MeContextDtos.MeContext(
                 user,
                 jiraProps.getProjectKey(),
-                perms.permissions(),
+                perms != null ? perms.permissions() : null,
                 profile
         );
     }
@@ -90,6 +136,7 @@ public class MeService {
         }
 
         jira.setIssueProperty(prefsIssueKey, propKey, value);
+        copilotTokens.invalidateUser(safeUserKey(user));
 
         return new MeContextDtos.UserProfilePrefs(
                 req.explainUserDescription(),
@@ -101,12 +148,20 @@ public class MeService {
 
     // ─────────────────────────────────────────────
 
+    /** Z cache per wywołujący (CopilotTokenCache) — tura czatu Copilot bez calli do Jiry. */
     public String getMyGithubCopilotTokenOrNull() {
-        var user = jira.getMe();
-        return getGithubCopilotTokenOrNull(user);
+        String enc = copilotTokens.tokenEncOrLoad(() -> {
+            var user = jira.getMe();
+            return new CopilotTokenCache.Loaded(safeUserKey(user), loadCopilotTokenEncOrNull(user));
+        });
+        return decryptTokenOrNull(enc);
     }
 
     public String getGithubCopilotTokenOrNull(JiraModels.UserResponse user) {
+        return decryptTokenOrNull(loadCopilotTokenEncOrNull(user));
+    }
+
+    private String loadCopilotTokenEncOrNull(JiraModels.UserResponse user) {
         var prefsIssueKey = getUserPrefsIssueKey();
         if (!isNotBlank(prefsIssueKey)) return null;
 
@@ -114,7 +169,10 @@ public class MeService {
         JsonNode raw = jira.getIssueProperty(prefsIssueKey, propKey);
         JsonNode v = unwrapJiraPropertyValue(raw);
 
-        String enc = strOrNull(v.get(COPILOT_TOKEN_ENC_KEY));
+        return strOrNull(v.get(COPILOT_TOKEN_ENC_KEY));
+    }
+
+    private String decryptTokenOrNull(String enc) {
         if (enc == null) return null;
 
         byte[] plain = crypto.decrypt(enc);
@@ -123,18 +181,21 @@ public class MeService {
     }
 
     private MeContextDtos.UserProfilePrefs loadProfilePrefs(JiraModels.UserResponse user) {
-        var prefsIssueKey = getUserPrefsIssueKey();
+        return loadProfilePrefs(user, getUserPrefsIssueKey());
+    }
+
+    private MeContextDtos.UserProfilePrefs loadProfilePrefs(JiraModels.UserResponse user, String prefsIssueKey) {
         var propKey = profilePropertyKey(user);
 
         if (!isNotBlank(prefsIssueKey)) {
-            return new MeContextDtos.UserProfilePrefs("", false, null, false);
+            return emptyPrefs();
         }
 
         JsonNode raw = jira.getIssueProperty(prefsIssueKey, propKey);
         JsonNode v = unwrapJiraPropertyValue(raw);
 
         if (v == null || v.isMissingNode() || v.isNull() || (v.isObject() && v.size() == 0)) {
-            return new MeContextDtos.UserProfilePrefs("", false, null, false);
+            return emptyPrefs();
         }
 
         String desc = v.path("explainUserDescription").asString("");
@@ -146,6 +207,63 @@ public class MeService {
         return new MeContextDtos.UserProfilePrefs(desc, notify, updatedAt, tokenPresent);
     }
 
+    private static MeContextDtos.UserProfilePrefs emptyPrefs() {
+        return new MeContextDtos.UserProfilePrefs("", false, null, false);
+    }
+
+    // ───────────── fan-out ─────────────
+
+    /**
+     * Zadanie na fanOutExecutor z auth i ledgerem requestu. Przez submit (FutureTask), bo
+     * CompletableFuture.cancel nie przerywa wątku — tu cancel(true) przerywa czekanie na Jirę.
+     */
+    private <T> CompletableFuture<T> fork(TokenPayload auth, JiraRequestLedger ledger, Supplier<T> call) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> task = fanOutExecutor.submit(() -> {
+            try {
+                result.complete(JiraAuthContext.callAs(auth, () -> JiraRequestLedger.callWith(ledger, call)));
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        });
+        result.whenComplete((v, e) -> {
+            if (result.isCancelled()) task.cancel(true);
+        });
+        return result;
+    }
+
+    private static <T> T await(CompletableFuture<T> f, long deadlineNanos) {
+        try {
+            return f.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            f.cancel(true);
+            throw new ServiceUnavailableException(
+                    "ME_CONTEXT_TIMEOUT",
+                    "Jira nie odpowiedziała na czas (kontekst użytkownika). Spróbuj ponownie za chwilę.",
+                    1
+            );
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("ME_CONTEXT_INTERRUPTED", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static <T> T awaitOrNull(CompletableFuture<T> f, long deadlineNanos) {
+        try {
+            return f.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (TimeoutException | ExecutionException e) {
+            log.warn("Profile prefs not loaded for /me/context (partial result). {}", e.toString());
+            f.cancel(true);
+            return null;
+        }
+    }
+
     private static JsonNode unwrapJiraPropertyValue(JsonNode raw) {
         if (raw == null || raw.isMissingNode() || raw.isNull()) return NF.objectNode();
 
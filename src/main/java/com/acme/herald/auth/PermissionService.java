@@ -0,0 +1,119 @@
+package com.acme.herald.auth;
+
+import com.acme.herald.config.JiraProperties;
+import com.acme.herald.config.PermissionCacheProperties;
+import com.acme.herald.domain.JiraModels;
+import com.acme.herald.provider.JiraProvider;
+import com.acme.herald.web.error.ForbiddenException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Wspólne sprawdzanie uprawnień (/mypermissions) z cache między requestami.
+ *
+ * Klucz: caller (hash tokena) + projectKey + issueKey + lista uprawnień, TTL z
+ * herald.jira.permissions-cache. Panel admina woła kilka endpointów pod rząd —
+ * każdy z nich robił osobny /mypermissions.
+ */
+@Service
+public class PermissionService {
+    public static final String PERM_ADMIN = "ADMINISTER_PROJECTS";
+
+    private final JiraProvider jira;
+    private final JiraProperties jiraProps;
+    private final PermissionCacheProperties props;
+
+    private final Map<Key, Entry> cache = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+
+    public PermissionService(
+            JiraProvider jira,
+            JiraProperties jiraProps,
+            PermissionCacheProperties props,
+            MeterRegistry meters
+    ) {
+        this.jira = jira;
+        this.jiraProps = jiraProps;
+        this.props = props;
+        this.hits = meters.counter("herald.jira.permissions.cache", "result", "hit");
+        this.misses = meters.counter("herald.jira.permissions.cache", "result", "miss");
+        meters.gaugeMapSize("herald.jira.permissions.cache.size", List.of(), cache);
+    }
+
+    public JiraModels.PermissionsResponse getMyPermissions(String projectKey, String issueKey, List<String> permissions) {
+        String caller = JiraAuthContext.callerFingerprintOrNull();
+        if (!props.isEnabled() || caller == null) {
+            return jira.getMyPermissions(projectKey, issueKey, permissions);
+        }
+
+        Key key = new Key(caller, nz(projectKey), nz(issueKey),
+                permissions == null ? "" : String.join(",", permissions));
+
+        long now = System.nanoTime();
+        Entry e = cache.get(key);
+        if (e != null && e.expiresAtNanos() - now > 0) {
+            hits.increment();
+            return e.value();
+        }
+
+        misses.increment();
+        JiraModels.PermissionsResponse fresh = jira.getMyPermissions(projectKey, issueKey, permissions);
+        if (fresh != null) {
+            evictIfFull(now);
+            cache.put(key, new Entry(fresh, now + props.getTtl().toNanos()));
+        }
+        return fresh;
+    }
+
+    public boolean isProjectAdmin() {
+        return has(getMyPermissions(jiraProps.getProjectKey(), null, null), PERM_ADMIN);
+    }
+
+    public void requireProjectAdmin() {
+        if (!isProjectAdmin()) {
+            throw new ForbiddenException("Brak uprawnienia: " + PERM_ADMIN + " w projekcie " + jiraProps.getProjectKey());
+        }
+    }
+
+    public static boolean has(JiraModels.PermissionsResponse perms, String permission) {
+        var map = perms != null ? perms.permissions() : null;
+        return map != null
+                && map.get(permission) != null
+                && Boolean.TRUE.equals(map.get(permission).havePermission());
+    }
+
+    // ───────────── invalidation ─────────────
+
+    /**
+     * Wszystkie wpisy bieżącego wywołującego (np. logout). Uprawnienia zmieniają się tylko
+     * w Jirze (schemat, grupy) — proxy nie ma takich ścieżek, nieaktualność ogranicza TTL.
+     */
+    public void invalidateCurrentCaller() {
+        String caller = JiraAuthContext.callerFingerprintOrNull();
+        if (caller != null) cache.keySet().removeIf(k -> k.caller().equals(caller));
+    }
+
+    // ───────────────────────────────────────────
+
+    private void evictIfFull(long now) {
+        if (cache.size() < props.getMaxEntries()) return;
+        cache.values().removeIf(e -> e.expiresAtNanos() - now <= 0);
+        // nadal pełno -> prosty reset, cache i tak krótko żyje
+        if (cache.size() >= props.getMaxEntries()) cache.clear();
+    }
+
+    private static String nz(String s) {
+        return Objects.requireNonNullElse(s, "").trim();
+    }
+
+    private record Key(String caller, String projectKey, String issueKey, String permissions) {}
+
+    private record Entry(JiraModels.PermissionsResponse value, long expiresAtNanos) {}
+}
@@ -39,6 +39,7 @@ public class SecurityConfig {
         cfg.setAllowedOrigins(authProps.getAllowedOrigins());
         cfg.setAllowedMethods(java.util.List.of("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
         cfg.setAllowedHeaders(java.util.List.of("*"));
+        cfg.setExposedHeaders(java.util.List.of("X-Herald-Cache", "Retry-After"));
         cfg.setAllowCredentials(true);
         cfg.setMaxAge(3600L);
 
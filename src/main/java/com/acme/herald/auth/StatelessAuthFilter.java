@@ -78,15 +78,18 @@ public class StatelessAuthFilter extends OncePerRequestFilter {
 
         req.setAttribute(ATTR_CURRENT_AUTH, tp);
 
-        if (!shouldNotAuthorize(req)) {
-            AccessDecision decision = checkAccess();
-            if (!decision.allowed) {
-                send403(res, decision.reason);
-                return;
+        // kontekst auth dla JiraProvider wiązany jawnie na czas obsługi requestu
+        try (var ignored = JiraAuthContext.bind(tp)) {
+            if (!shouldNotAuthorize(req)) {
+                AccessDecision decision = checkAccess();
+                if (!decision.allowed) {
+                    send403(res, decision.reason);
+                    return;
+                }
             }
-        }
 
-        chain.doFilter(req, res);
+            chain.doFilter(req, res);
+        }
     }
 
     private boolean shouldNotAuthorize(HttpServletRequest req) {
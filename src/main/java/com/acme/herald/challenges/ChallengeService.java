@@ -1,7 +1,7 @@
 package com.acme.herald.challenges;
 
+import com.acme.herald.auth.PermissionService;
 import com.acme.herald.config.JiraConfigService;
-import com.acme.herald.config.JiraProperties;
 import com.acme.herald.domain.JiraModels;
 import com.acme.herald.domain.dto.ChallengeDtos;
 import com.acme.herald.provider.JiraProvider;
@@ -25,14 +25,13 @@ import static org.apache.commons.lang3.StringUtils.isNotBlank;
 public class ChallengeService {
 
     private static final String PROP_KEY = "herald.template-hub.challenges.v1";
-    private static final String PERM_ADMIN = "ADMINISTER_PROJECTS";
 
     private static final Pattern SAFE_ID = Pattern.compile("^[a-zA-Z0-9_\\-]{6,64}$");
 
     private final JiraProvider jira;
-    private final JiraProperties jiraProps;
     private final JiraConfigService jiraConfigService;
     private final JsonMapper json;
+    private final PermissionService permissions;
 
     // ───────────────────────────── Public API ─────────────────────────────
 
@@ -133,8 +132,9 @@ public class ChallengeService {
     // ───────────────────────────── Storage ─────────────────────────────
 
     private ChallengeStore loadStore(String issueKey) {
+        // błąd Jiry (5xx/timeout) leci wyżej — pusty store nadpisałby wpisy przy zapisie
+        JsonNode v = jira.getIssueProperty(issueKey, PROP_KEY);
         try {
-            JsonNode v = jira.getIssueProperty(issueKey, PROP_KEY);
 
             if (v == null || v.isMissingNode() || v.isNull() || (v.isObject() && v.size() == 0)) {
                 return new ChallengeStore(1, null, List.of());
@@ -198,12 +198,7 @@ public class ChallengeService {
     }
 
     private boolean isProjectAdmin() {
-        JiraModels.PermissionsResponse perms = jira.getMyPermissions(jiraProps.getProjectKey(), null, null);
-        var map = perms != null ? perms.permissions() : null;
-
-        return map != null
-                && map.get(PERM_ADMIN) != null
-                && Boolean.TRUE.equals(map.get(PERM_ADMIN).havePermission());
+        return permissions.isProjectAdmin();
     }
 
     // ───────────────────────────── Config ─────────────────────────────
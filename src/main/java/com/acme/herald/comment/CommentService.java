@@ -301,8 +301,9 @@ public class CommentService {
     // ────────── HELPERY: meta <-> Jira -> FetchRes ──────────
 
     private CommentDtos.PropertyValue readProperty(String issueKey) {
+        // błąd Jiry (5xx/timeout) leci wyżej — pusty stan nadpisałby metadane przy zapisie
+        JsonNode val = jira.getIssueProperty(issueKey, PROPERTY_KEY); // <-- już value
         try {
-            JsonNode val = jira.getIssueProperty(issueKey, PROPERTY_KEY); // <-- już value
             if (val != null && !val.isNull() && !val.isMissingNode() && !(val.isObject() && val.size() == 0)) {
                 return jsonMapper.treeToValue(val, CommentDtos.PropertyValue.class);
             }
@@ -0,0 +1,24 @@
+package com.acme.herald.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@ConfigurationProperties(prefix = "herald.jira.bulk-upsert")
+public class BulkUpsertProperties {
+    private int maxItems = 5_000;
+    /** Elementów na jeden POST /issue/bulk (Jira przyjmuje maksymalnie 50). */
+    private int createChunkSize = 50;
+    /** Id na jedno zapytanie JQL przy rozwiązywaniu istniejących kluczy. */
+    private int lookupChunkSize = 50;
+    /** Równoległe calle do Jiry w jednym bulku (update, create, linki). */
+    private int maxConcurrency = 8;
+}
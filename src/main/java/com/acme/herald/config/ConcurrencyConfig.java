@@ -0,0 +1,20 @@
+package com.acme.herald.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class ConcurrencyConfig {
+
+    /**
+     * Executor do równoległych calli upstream (fan-out). Virtual threads: zadania i tak
+     * głównie czekają na I/O do Jiry. Kontekst auth przekazujemy jawnie (JiraAuthContext.wrap).
+     */
+    @Bean(destroyMethod = "close")
+    public ExecutorService fanOutExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+}
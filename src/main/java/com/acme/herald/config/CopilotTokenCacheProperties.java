@@ -0,0 +1,23 @@
+package com.acme.herald.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@ConfigurationProperties(prefix = "herald.llm.copilot-token-cache")
+public class CopilotTokenCacheProperties {
+    private boolean enabled = true;
+    /** Krótko — zmiana tokena z innej sesji tego samego usera widoczna najpóźniej po ttl. */
+    private Duration ttl = Duration.ofMinutes(5);
+    private int maxEntries = 10_000;
+}
@@ -0,0 +1,21 @@
+package com.acme.herald.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@ConfigurationProperties(prefix = "herald.jira.issue-key-map")
+public class IssueKeyMapProperties {
+    private boolean enabled = true;
+    /** Zapis mapowania także jako project property (współdzielone między instancjami, przeżywa restart). */
+    private boolean persist = true;
+    private int maxEntries = 50_000;
+}
@@ -1,8 +1,7 @@
 package com.acme.herald.config;
 
-import com.acme.herald.domain.JiraModels;
+import com.acme.herald.auth.PermissionService;
 import com.acme.herald.provider.JiraProvider;
-import com.acme.herald.web.error.ForbiddenException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import tools.jackson.databind.JsonNode;
@@ -24,7 +23,6 @@ public class JiraConfigService {
     private static final String DEFAULT_BANNER_COLOR = "#ff897d";
 
     private static final String PROP_KEY = "herald.jiraConfig";
-    private static final String PERM_ADMIN = "ADMINISTER_PROJECTS";
 
     private static final Set<String> CASE_ALLOWED = Set.of("TODO", "IN_PROGRESS", "DONE", "IN_REVIEW", "REJECTED");
     private static final List<String> CASE_REQUIRED = List.of("TODO", "IN_PROGRESS", "DONE", "REJECTED");
@@ -35,6 +33,7 @@ public class JiraConfigService {
     private final JiraProvider jira;
     private final JiraProperties jiraProps;
     private final JsonMapper jsonMapper;
+    private final PermissionService permissions;
 
     // ─────────── ADMIN endpoints ───────────
 
@@ -77,17 +76,7 @@ public class JiraConfigService {
     // ───────────────────────────────────────────────────────
 
     private void requireProjectAdmin() {
-        String storageProjectKey = jiraProps.getProjectKey();
-        JiraModels.PermissionsResponse perms = jira.getMyPermissions(storageProjectKey, null, null);
-        var map = perms != null ? perms.permissions() : null;
-
-        boolean isAdmin = map != null
-                && map.get(PERM_ADMIN) != null
-                && Boolean.TRUE.equals(map.get(PERM_ADMIN).havePermission());
-
-        if (!isAdmin) {
-            throw new ForbiddenException("Brak uprawnienia: " + PERM_ADMIN + " w projekcie " + storageProjectKey);
-        }
+        permissions.requireProjectAdmin();
     }
 
     private StoredJiraIntegration loadStoredOrDefault() {
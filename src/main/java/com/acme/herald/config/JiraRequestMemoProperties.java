@@ -0,0 +1,20 @@
+package com.acme.herald.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@ConfigurationProperties(prefix = "herald.jira.request-memo")
+public class JiraRequestMemoProperties {
+    private boolean enabled = true;
+    private boolean debugHeader = false;
+    private String debugHeaderName = "X-Herald-Jira-Calls";
+}
@@ -0,0 +1,56 @@
+package com.acme.herald.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@ConfigurationProperties(prefix = "herald.jira.resilience")
+public class JiraResilienceProperties {
+    private boolean enabled = true;
+
+    private Op read = new Op(Duration.ofSeconds(10), 48, Duration.ofSeconds(1));
+    private Op write = new Op(Duration.ofSeconds(15), 16, Duration.ofSeconds(2));
+    private Op attachment = new Op(Duration.ofSeconds(60), 8, Duration.ofSeconds(5));
+    /** POST /issue/bulk — do 50 issue w jednym callu, trwa wielokrotność pojedynczego create. */
+    private Op bulkWrite = new Op(Duration.ofSeconds(120), 8, Duration.ofSeconds(5));
+
+    private Breaker breaker = new Breaker();
+
+    /** Klasa operacji: timeout całego calla + osobny bulkhead. */
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Op {
+        /** 0 = bez limitu czasu (call na wątku wywołującym). */
+        private Duration timeout = Duration.ofSeconds(10);
+        private int maxConcurrent = 32;
+        private Duration acquireTimeout = Duration.ofSeconds(1);
+    }
+
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Breaker {
+        /** Ile ostatnich wyników bierzemy pod uwagę. */
+        private int windowSize = 50;
+        /** Poniżej tylu wyników w oknie breaker się nie otwiera. */
+        private int minCalls = 20;
+        /** Procent porażek (5xx, 429, timeout, I/O), od którego otwieramy. */
+        private int failureRateThreshold = 50;
+        private Duration openDuration = Duration.ofSeconds(30);
+        /** Próbne calle w stanie half-open. */
+        private int halfOpenCalls = 3;
+    }
+}
@@ -0,0 +1,24 @@
+package com.acme.herald.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@ConfigurationProperties(prefix = "herald.llm.batch")
+public class LlmBatchProperties {
+    private int maxItems = 20;
+    /** Górny limit równoległości w jednym batchu (klient może poprosić o mniej). */
+    private int maxConcurrency = 4;
+    /** Limit na cały batch; niedokończone pozycje wracają z błędem BATCH_TIMEOUT. */
+    private Duration timeout = Duration.ofSeconds(120);
+}
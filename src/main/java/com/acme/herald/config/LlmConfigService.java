@@ -1,15 +1,14 @@
 package com.acme.herald.config;
 
 import com.acme.herald.auth.CryptoService;
+import com.acme.herald.auth.PermissionService;
 import com.acme.herald.config.LlmIntegrationDtos.GitHubCopilotConfigDto;
 import com.acme.herald.config.LlmIntegrationDtos.LlmCatalogDto;
 import com.acme.herald.config.LlmIntegrationDtos.LlmCatalogModelDto;
 import com.acme.herald.config.LlmIntegrationDtos.StoredCatalog;
 import com.acme.herald.config.LlmIntegrationDtos.StoredGitHubCopilot;
 import com.acme.herald.config.LlmIntegrationDtos.StoredModel;
-import com.acme.herald.domain.JiraModels;
 import com.acme.herald.provider.JiraProvider;
-import com.acme.herald.web.error.ForbiddenException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import tools.jackson.databind.JsonNode;
@@ -25,12 +24,12 @@ import static java.util.Optional.ofNullable;
 public class LlmConfigService {
 
     private static final String PROP_KEY = "herald.llmCatalog";
-    private static final String PERM_ADMIN = "ADMINISTER_PROJECTS";
 
     private final JiraProvider jira;
     private final JiraProperties jiraProps;
     private final JsonMapper jsonMapper;
     private final CryptoService crypto;
+    private final PermissionService permissions;
 
     // ─────────────────────────────────────────────────────────────────
     // Runtime usage: encrypted secrets in-memory (NO admin requirement)
@@ -64,6 +63,8 @@ public class LlmConfigService {
                     m.supports(),
                     m.defaults(),
                     m.githubCopilotModel(),
+                    m.fallbackModelIds(),
+                    m.cacheCompletions(),
                     null, // token write-only
                     m.tokenEnc() != null && !m.tokenEnc().isBlank()
             ));
@@ -120,6 +121,8 @@ public class LlmConfigService {
                     m.supports(),
                     m.defaults(),
                     Boolean.TRUE.equals(m.githubCopilotModel()),
+                    sanitizeFallbacks(m.id().trim(), m.fallbackModelIds()),
+                    Boolean.TRUE.equals(m.cacheCompletions()),
                     tokenEnc
             ));
         }
@@ -172,6 +175,8 @@ public class LlmConfigService {
                     m.supports(),
                     m.defaults(),
                     m.githubCopilotModel(),
+                    m.fallbackModelIds(),
+                    m.cacheCompletions(),
                     m.tokenEnc(), // encrypted token in-memory
                     m.tokenEnc() != null && !m.tokenEnc().isBlank()
             ));
@@ -190,17 +195,7 @@ public class LlmConfigService {
     // ─────────────────────────────────────────────────────────────────
 
     private void requireProjectAdmin() {
-        var projectKey = jiraProps.getProjectKey();
-        JiraModels.PermissionsResponse perms = jira.getMyPermissions(projectKey, null, null);
-        var map = perms != null ? perms.permissions() : null;
-
-        boolean isAdmin = map != null
-                && map.get(PERM_ADMIN) != null
-                && Boolean.TRUE.equals(map.get(PERM_ADMIN).havePermission());
-
-        if (!isAdmin) {
-            throw new ForbiddenException("Brak uprawnienia: " + PERM_ADMIN + " w projekcie " + projectKey);
-        }
+        permissions.requireProjectAdmin();
     }
 
     private StoredCatalog loadStored() {
@@ -233,6 +228,16 @@ public class LlmConfigService {
         jira.setProjectProperty(jiraProps.getProjectKey(), PROP_KEY, stored);
     }
 
+    private static List<String> sanitizeFallbacks(String selfId, List<String> ids) {
+        if (ids == null || ids.isEmpty()) return null;
+        LinkedHashSet<String> out = new LinkedHashSet<>();
+        for (String id : ids) {
+            String t = blankToNull(id);
+            if (t != null && !t.equals(selfId)) out.add(t);
+        }
+        return out.isEmpty() ? null : List.copyOf(out);
+    }
+
     private static String nz(String s) {
         return s == null ? "" : s.trim();
     }
@@ -0,0 +1,93 @@
+package com.acme.herald.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchroniczne wyjście logów HTTP LLM: interceptor tylko wrzuca (nieblokujące offer) gotowy
+ * wpis z uciętym body do ograniczonej kolejki, a formatowanie i I/O robi jeden wątek w tle.
+ * Pełna kolejka = wpis odrzucony (herald.llm.http_log{result=dropped}), nigdy czekanie.
+ */
+@Component
+class LlmHttpLogSink {
+    private static final Logger log = LoggerFactory.getLogger("LLM_HTTP");
+
+    /** Wpis gotowy do zapisu; body to już ucięty prefiks (maxBodyBytes), originalBytes to pełny rozmiar. */
+    record Entry(String rid, String line, String headers, byte[] body, int originalBytes) {}
+
+    private final BlockingQueue<Entry> queue;
+    private final Counter written;
+    private final Counter dropped;
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    LlmHttpLogSink(LlmProxyHttpLogProperties props, MeterRegistry meters) {
+        this.queue = new ArrayBlockingQueue<>(Math.max(16, props.getQueueCapacity()));
+        this.written = meters.counter("herald.llm.http_log", "result", "written");
+        this.dropped = meters.counter("herald.llm.http_log", "result", "dropped");
+        meters.gauge("herald.llm.http_log.queue", queue, BlockingQueue::size);
+
+        this.worker = Thread.ofPlatform().name("llm-http-log").daemon().start(this::drain);
+    }
+
+    /** Nieblokujące: false (i licznik dropped), gdy kolejka pełna. */
+    boolean offer(Entry e) {
+        if (queue.offer(e)) return true;
+        dropped.increment();
+        return false;
+    }
+
+    private void drain() {
+        while (running || !queue.isEmpty()) {
+            try {
+                Entry e = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (e != null) write(e);
+            } catch (InterruptedException ie) {
+                if (!running) break;
+            } catch (RuntimeException ex) {
+                // logger nie może zabić wątku
+            }
+        }
+    }
+
+    private void write(Entry e) {
+        log.info("[{}] {}\nheaders={}\nbody={}", e.rid(), e.line(), e.headers(), body(e));
+        written.increment();
+    }
+
+    private static String body(Entry e) {
+        if (e.body() == null) return "(body disabled)";
+        // ucięcie w środku znaku UTF-8 -> znak zastępczy zamiast wyjątku
+        String s;
+        try {
+            s = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE)
+                    .decode(ByteBuffer.wrap(e.body()))
+                    .toString();
+        } catch (Exception ex) {
+            s = "(undecodable body)";
+        }
+        return e.originalBytes() > e.body().length
+                ? s + "...(truncated, " + e.originalBytes() + " bytes)"
+                : s;
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        worker.interrupt();
+        worker.join(2000);
+    }
+}
@@ -75,6 +75,12 @@ public final class LlmIntegrationDtos {
             @Schema(description = "Marks this catalog entry as a GitHub Copilot-backed model (token handling is controlled by githubCopilot config).", example = "false")
             Boolean githubCopilotModel,
 
+            @Schema(description = "Optional ordered list of catalog model ids used when this model is unavailable (circuit open, rate-limited, 5xx).", example = "[\"gpt-4o-mini\"]")
+            List<String> fallbackModelIds,
+
+            @Schema(description = "Allows the proxy response cache for this model also when temperature > 0 (temperature 0 is always cacheable when the cache is enabled).", example = "false")
+            Boolean cacheCompletions,
+
             @Schema(description = "Write-only access token for the Provider. If omitted or blank, the previous token is kept.", example = "sk-live-***")
             @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
             String token,
@@ -138,6 +144,8 @@ public final class LlmIntegrationDtos {
             LlmModelSupportsDto supports,
             LlmModelDefaultsDto defaults,
             Boolean githubCopilotModel,
+            List<String> fallbackModelIds,
+            Boolean cacheCompletions,
             String tokenEnc
     ) {}
 }
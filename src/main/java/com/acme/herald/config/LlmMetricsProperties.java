@@ -0,0 +1,25 @@
+package com.acme.herald.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@ConfigurationProperties(prefix = "herald.llm.metrics")
+public class LlmMetricsProperties {
+    /**
+     * Grupy Jiry używane jako tag "group" (pierwsza pasująca w tej kolejności, inaczej "other").
+     * Pusta lista = tag "all" i brak dodatkowego getMe — ogranicza kardynalność metryk.
+     */
+    private List<String> groups = new ArrayList<>();
+}
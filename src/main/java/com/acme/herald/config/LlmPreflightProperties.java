@@ -0,0 +1,26 @@
+package com.acme.herald.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@ConfigurationProperties(prefix = "herald.llm.preflight")
+public class LlmPreflightProperties {
+    private boolean enabled = true;
+    /** TRUNCATE: wyrzuć najstarsze wiadomości (system zostaje); REJECT: od razu 413. */
+    private Mode mode = Mode.TRUNCATE;
+    /** Zapas na niedokładność estymatora (% okna). */
+    private int safetyMarginPercent = 5;
+    /** Rezerwa na odpowiedź, gdy ani request, ani katalog nie podają max_tokens. */
+    private int defaultCompletionReserve = 1024;
+
+    public enum Mode {TRUNCATE, REJECT}
+}
@@ -16,7 +16,12 @@ import org.springframework.context.annotation.Configuration;
 public class LlmProxyHttpLogProperties {
     private boolean enabled = false;
     private boolean logBodies = false;
-    private int maxBodyChars = 8000;
+    /** Prefiks body w bajtach (ucinany bez budowania pełnego Stringa). */
+    private int maxBodyBytes = 8192;
     private boolean logHeaders = true;
     private boolean onlyErrors = false;
+    /** Ułamek wymian logowanych w całości (0..1); odpowiedzi >= 400 logujemy zawsze. */
+    private double sampleRate = 1.0;
+    /** Pojemność kolejki do wątku logującego; nadmiar jest odrzucany. */
+    private int queueCapacity = 1024;
 }
@@ -0,0 +1,40 @@
+package com.acme.herald.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@ConfigurationProperties(prefix = "herald.llm.rate-limit")
+public class LlmRateLimitProperties {
+    private boolean enabled = true;
+
+    /** Per użytkownik Jiry (key / name z /myself), niezależnie od modelu i liczby jego tokenów. */
+    private Bucket perUser = new Bucket(20, 20);
+    /** Per modelId z katalogu — chroni limit tokena modelu / globalnego PAT Copilota. */
+    private Bucket perModel = new Bucket(120, 120);
+    /** Max równoległych calli per model (0 = bez limitu). */
+    private int maxInFlightPerModel = 8;
+    /** Powyżej tylu kubełków userów sprzątamy nieużywane (pełne). */
+    private int maxUserBuckets = 10000;
+    /** Jak długo pamiętamy token -> użytkownik Jiry (bez tego każdy call LLM kosztowałby getMe). */
+    private Duration userResolveTtl = Duration.ofMinutes(10);
+
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Bucket {
+        private int capacity = 20;
+        private int refillPerMinute = 20;
+    }
+}
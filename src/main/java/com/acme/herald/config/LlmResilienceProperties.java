@@ -0,0 +1,45 @@
+package com.acme.herald.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@ConfigurationProperties(prefix = "herald.llm.resilience")
+public class LlmResilienceProperties {
+    private boolean enabled = true;
+
+    private Duration connectTimeout = Duration.ofSeconds(5);
+    /** Bez tego wiszący upstream trzyma wątek (i permit bulkheadu) w nieskończoność. */
+    private Duration readTimeout = Duration.ofSeconds(120);
+
+    /** Waga najnowszej próbki w EWMA latencji / error rate. */
+    private double ewmaAlpha = 0.2;
+    /** Ile modeli z fallbackModelIds próbujemy po primary. */
+    private int maxFallbacks = 2;
+    /** Gdy 429 nie niesie Retry-After. */
+    private Duration defaultRetryAfter = Duration.ofSeconds(20);
+
+    private Breaker breaker = new Breaker();
+
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Breaker {
+        private int windowSize = 20;
+        private int minCalls = 5;
+        private int failureRateThreshold = 50;
+        private Duration openDuration = Duration.ofSeconds(30);
+        private int halfOpenCalls = 1;
+    }
+}
@@ -0,0 +1,25 @@
+package com.acme.herald.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@ConfigurationProperties(prefix = "herald.llm.response-cache")
+public class LlmResponseCacheProperties {
+    /** Opt-in: bez tego żadna odpowiedź nie jest cache'owana. */
+    private boolean enabled = false;
+    private Duration ttl = Duration.ofHours(1);
+    private int maxEntries = 1000;
+    /** Request: "bypass" pomija odczyt z cache; response: HIT / MISS / BYPASS / OFF. */
+    private String header = "X-Herald-Cache";
+}
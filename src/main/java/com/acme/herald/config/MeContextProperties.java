@@ -0,0 +1,23 @@
+package com.acme.herald.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@ConfigurationProperties(prefix = "herald.me.context")
+public class MeContextProperties {
+    /** Limit na cały /me/context (user + permissions + config). */
+    private Duration timeout = Duration.ofSeconds(10);
+    /** Limit na profil — po nim zwracamy kontekst z pustym profilem. */
+    private Duration profileTimeout = Duration.ofMillis(1500);
+}
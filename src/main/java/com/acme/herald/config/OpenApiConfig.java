@@ -1,5 +1,6 @@
 package com.acme.herald.config;
 
+import com.acme.herald.provider.JiraUpstreamException;
 import feign.Logger;
 import feign.codec.ErrorDecoder;
 import io.swagger.v3.oas.models.info.Info;
@@ -42,7 +43,8 @@ public class OpenApiConfig {
             log.error("Feign error on {}: status={}, reason={}, body={}",
                     methodKey, response.status(), response.reason(), body);
 
-            return new RuntimeException("Feign error " + response.status() + " for " + methodKey + "with body:" + body);
+            return new JiraUpstreamException(response.status(), methodKey,
+                    "Feign error " + response.status() + " for " + methodKey + "with body:" + body, body);
         };
     }
 }
@@ -0,0 +1,22 @@
+package com.acme.herald.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@ConfigurationProperties(prefix = "herald.jira.permissions-cache")
+public class PermissionCacheProperties {
+    private boolean enabled = true;
+    private Duration ttl = Duration.ofSeconds(60);
+    private int maxEntries = 10_000;
+}
@@ -1,99 +1,250 @@
 package com.acme.herald.config;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import com.acme.herald.ai.LlmMetrics;
+import com.acme.herald.resilience.Bulkhead;
+import com.acme.herald.resilience.UpstreamBulkheads;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpRequest;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.client.*;
-import org.springframework.util.StreamUtils;
 import org.springframework.web.client.RestClient;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
+import java.net.http.HttpClient;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 
 @Configuration
 public class RestClientConfig {
 
+    /**
+     * Jeden współdzielony HttpClient dla upstreamów LLM = pula połączeń keep-alive per host
+     * (sidecar Copilot, gateway LLM); HTTP/1.1 wprost — upstreamy są po http, próba upgrade'u h2c
+     * to zbędny round-trip.
+     */
     @Bean
-    public RestClient restClient(RestClient.Builder builder, LlmProxyHttpLogProperties props) {
+    HttpClient llmHttpClient(LlmResilienceProperties resilience) {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(resilience.getConnectTimeout())
+                .build();
+    }
+
+    @Bean
+    @Primary
+    public RestClient restClient(RestClient.Builder builder, LlmProxyHttpLogProperties props, LlmHttpLogSink logSink,
+                                 UpstreamBulkheads bulkheads, LlmResilienceProperties resilience, LlmMetrics metrics,
+                                 HttpClient llmHttpClient) {
         // Buffering jest MUST, jeśli chcesz logować response body i dalej parsować JSON do DTO.
-        ClientHttpRequestFactory base = new SimpleClientHttpRequestFactory();
+        JdkClientHttpRequestFactory base = new JdkClientHttpRequestFactory(llmHttpClient);
+        // timeouty -> wolny upstream kończy się ResourceAccessException (failover), a nie wiszącym wątkiem
+        base.setReadTimeout(resilience.getReadTimeout());
         ClientHttpRequestFactory buffering = new BufferingClientHttpRequestFactory(base);
 
         builder.requestFactory(buffering);
 
+        // bulkhead per base URL LLM — pierwszy, żeby czekanie na permit nie wliczało się do logów/czasów
+        builder.requestInterceptor(new LlmBulkheadInterceptor(bulkheads));
+
         if (props.isEnabled()) {
-            builder.requestInterceptor(new LlmHttpLoggingInterceptor(props));
+            builder.requestInterceptor(new LlmHttpLoggingInterceptor(props, logSink));
         }
 
+        // ostatni w łańcuchu = najbliżej sieci: execute() wraca po nagłówkach odpowiedzi
+        builder.requestInterceptor(new LlmTtfbInterceptor(metrics));
+
         return builder.build();
     }
 
+    /**
+     * Klient do stream=true (SSE): bez bufferingu i bez logowania body — odpowiedź jest
+     * przepisywana do klienta kawałkami. TTFB jak w restClient (do nagłówków), ale permit
+     * bulkheadu trzymany do zamknięcia odpowiedzi — generacja obciąża upstream do końca strumienia.
+     */
+    @Bean
+    public RestClient llmStreamingRestClient(UpstreamBulkheads bulkheads, LlmResilienceProperties resilience,
+                                             LlmMetrics metrics, HttpClient llmHttpClient) {
+        JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(llmHttpClient);
+        // ten sam limit co restClient: generacja dłuższa niż readTimeout i tak nie zmieściłaby się w zwykłym /chat
+        factory.setReadTimeout(resilience.getReadTimeout());
+
+        return RestClient.builder()
+                .requestFactory(factory)
+                .requestInterceptor(new LlmStreamingBulkheadInterceptor(bulkheads))
+                .requestInterceptor(new LlmTtfbInterceptor(metrics))
+                .build();
+    }
+
     @Bean
     RestClient.Builder restClientBuilder() {
         return RestClient.builder();
     }
 
+    static final class LlmBulkheadInterceptor implements ClientHttpRequestInterceptor {
+        private final UpstreamBulkheads bulkheads;
+
+        LlmBulkheadInterceptor(UpstreamBulkheads bulkheads) {
+            this.bulkheads = bulkheads;
+        }
+
+        @Override
+        public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+            return UpstreamBulkheads.call(bulkheads.llm(request.getURI()), () -> execution.execute(request, body));
+        }
+    }
+
+    /** Jak LlmBulkheadInterceptor, ale permit zwalnia dopiero close() odpowiedzi (koniec strumienia). */
+    static final class LlmStreamingBulkheadInterceptor implements ClientHttpRequestInterceptor {
+        private final UpstreamBulkheads bulkheads;
+
+        LlmStreamingBulkheadInterceptor(UpstreamBulkheads bulkheads) {
+            this.bulkheads = bulkheads;
+        }
+
+        @Override
+        public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+            Bulkhead.Lease lease = UpstreamBulkheads.lease(bulkheads.llm(request.getURI()));
+            try {
+                return new LeasedResponse(execution.execute(request, body), lease);
+            } catch (IOException | RuntimeException e) {
+                lease.close();
+                throw e;
+            }
+        }
+    }
+
+    private record LeasedResponse(ClientHttpResponse delegate, Bulkhead.Lease lease) implements ClientHttpResponse {
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return delegate.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return delegate.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            return delegate.getBody();
+        }
+
+        @Override
+        public void close() {
+            try {
+                delegate.close();
+            } finally {
+                lease.close();
+            }
+        }
+    }
+
+    static final class LlmTtfbInterceptor implements ClientHttpRequestInterceptor {
+        private final LlmMetrics metrics;
+
+        LlmTtfbInterceptor(LlmMetrics metrics) {
+            this.metrics = metrics;
+        }
+
+        @Override
+        public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+            Object model = request.getAttributes().get(LlmMetrics.ATTR_MODEL);
+            if (model == null) return execution.execute(request, body);
+
+            long t0 = System.nanoTime();
+            ClientHttpResponse response = execution.execute(request, body);
+            Object group = request.getAttributes().get(LlmMetrics.ATTR_GROUP);
+            metrics.timeToFirstByte(model.toString(), group != null ? group.toString() : "all", System.nanoTime() - t0);
+            return response;
+        }
+    }
+
+    /**
+     * Po stronie wątku requestu tylko: decyzja o samplingu, maskowanie nagłówków i kopia
+     * prefiksu body (maxBodyBytes). Formatowanie i zapis — LlmHttpLogSink w tle.
+     * Response body jest re-readable dzięki BufferingClientHttpRequestFactory — czytamy tylko prefiks.
+     */
     static final class LlmHttpLoggingInterceptor implements ClientHttpRequestInterceptor {
-        private static final Logger log = LoggerFactory.getLogger("LLM_HTTP");
         private final LlmProxyHttpLogProperties props;
+        private final LlmHttpLogSink sink;
 
-        LlmHttpLoggingInterceptor(LlmProxyHttpLogProperties props) {
+        LlmHttpLoggingInterceptor(LlmProxyHttpLogProperties props, LlmHttpLogSink sink) {
             this.props = props;
+            this.sink = sink;
         }
 
         @Override
         public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
             String rid = UUID.randomUUID().toString().substring(0, 8);
+            boolean sampled = !props.isOnlyErrors() && ThreadLocalRandom.current().nextDouble() < props.getSampleRate();
 
             long t0 = System.nanoTime();
-            if (!props.isOnlyErrors()) {
-                logRequest(rid, request, body);
+            if (sampled) {
+                sink.offer(new LlmHttpLogSink.Entry(
+                        rid,
+                        ">>> " + request.getMethod() + " " + request.getURI(),
+                        headers(request.getHeaders()),
+                        props.isLogBodies() ? prefix(body) : null,
+                        body != null ? body.length : 0
+                ));
             }
 
             ClientHttpResponse response = execution.execute(request, body);
 
-            // Skopiuj body (BufferingClientHttpRequestFactory już “umożliwia” ponowne czytanie,
-            // ale my i tak wolimy mieć swoje bytes do logowania i pewność re-readable).
-            byte[] respBytes = StreamUtils.copyToByteArray(response.getBody());
             int status = response.getStatusCode().value();
-            long ms = (System.nanoTime() - t0) / 1_000_000;
-
-            boolean shouldLog = !props.isOnlyErrors() || status >= 400;
-            if (shouldLog) {
-                logResponse(rid, response, respBytes, ms);
+            if (sampled || status >= 400) {
+                long ms = (System.nanoTime() - t0) / 1_000_000;
+                byte[] respPrefix = null;
+                int respLen = 0;
+                if (props.isLogBodies()) {
+                    int max = Math.max(0, props.getMaxBodyBytes());
+                    byte[] raw = readPrefix(response, max + 1); // +1 bajt: wiemy, że ucięte, nawet bez Content-Length
+                    respPrefix = raw.length > max ? Arrays.copyOf(raw, max) : raw;
+                    respLen = (int) Math.max(response.getHeaders().getContentLength(), raw.length);
+                }
+                sink.offer(new LlmHttpLogSink.Entry(
+                        rid,
+                        "<<< " + status + " (" + ms + "ms)" + (sampled ? "" : " " + request.getMethod() + " " + request.getURI()),
+                        headers(response.getHeaders()),
+                        respPrefix,
+                        respLen
+                ));
             }
 
-            return new ReReadableClientHttpResponse(response, respBytes);
+            return response;
         }
 
-        private void logRequest(String rid, HttpRequest request, byte[] body) {
-            String headers = props.isLogHeaders() ? formatHeaders(request.getHeaders()) : "(headers disabled)";
-            String bodyStr = props.isLogBodies() ? limit(new String(body, StandardCharsets.UTF_8), props.getMaxBodyChars()) : "(body disabled)";
-
-            log.info("[{}] >>> {} {}\nheaders={}\nbody={}",
-                    rid, request.getMethod(), request.getURI(), headers, bodyStr);
+        private byte[] prefix(byte[] body) {
+            if (body == null) return new byte[0];
+            int max = Math.max(0, props.getMaxBodyBytes());
+            return body.length <= max ? body.clone() : Arrays.copyOf(body, max);
         }
 
-        private void logResponse(String rid, ClientHttpResponse response, byte[] body, long ms) throws IOException {
-            String headers = props.isLogHeaders() ? formatHeaders(response.getHeaders()) : "(headers disabled)";
-            String bodyStr = props.isLogBodies() ? limit(new String(body, StandardCharsets.UTF_8), props.getMaxBodyChars()) : "(body disabled)";
-
-            log.info("[{}] <<< {} ({}ms)\nheaders={}\nbody={}",
-                    rid, response.getStatusCode().value(), ms, headers, bodyStr);
+        private static byte[] readPrefix(ClientHttpResponse response, int limit) {
+            try (InputStream is = response.getBody()) {
+                return is.readNBytes(limit);
+            } catch (IOException e) {
+                return new byte[0];
+            }
         }
 
-        private String formatHeaders(HttpHeaders h) {
+        private String headers(HttpHeaders h) {
+            if (!props.isLogHeaders()) return "(headers disabled)";
+
             // maskuj Authorization
             Map<String, List<String>> masked = new LinkedHashMap<>();
             h.forEach((k, v) -> {
@@ -108,47 +259,5 @@ public class RestClientConfig {
                     .map(e -> e.getKey() + "=" + e.getValue())
                     .collect(Collectors.joining(", "));
         }
-
-        private String limit(String s, int max) {
-            if (s == null) return "";
-            if (max <= 0) return "";
-            if (s.length() <= max) return s;
-            return s.substring(0, max) + "...(truncated)";
-        }
-    }
-
-    static final class ReReadableClientHttpResponse implements ClientHttpResponse {
-        private final ClientHttpResponse delegate;
-        private final byte[] body;
-
-        ReReadableClientHttpResponse(ClientHttpResponse delegate, byte[] body) {
-            this.delegate = delegate;
-            this.body = (body != null ? body : new byte[0]);
-        }
-
-        @Override
-        public InputStream getBody() {
-            return new ByteArrayInputStream(body);
-        }
-
-        @Override
-        public HttpHeaders getHeaders() {
-            return delegate.getHeaders();
-        }
-
-        @Override
-        public String getStatusText() throws IOException {
-            return delegate.getStatusText();
-        }
-
-        @Override
-        public void close() {
-            delegate.close();
-        }
-
-        @Override
-        public HttpStatusCode getStatusCode() throws IOException {
-            return delegate.getStatusCode();
-        }
     }
 }
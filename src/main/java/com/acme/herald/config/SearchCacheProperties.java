@@ -0,0 +1,33 @@
+package com.acme.herald.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@ConfigurationProperties(prefix = "herald.jira.search-cache")
+public class SearchCacheProperties {
+    private boolean enabled = true;
+    private Duration ttl = Duration.ofSeconds(30);
+    private int maxEntries = 2_000;
+    /**
+     * Z kim współdzielony jest wynik: CALLER — tylko ten sam wywołujący (bezpieczne zawsze),
+     * GROUPS — użytkownicy z identycznym zestawem grup Jiry. GROUPS tylko gdy projekt nie ma
+     * issue security zależnego od reportera / assignee / pól użytkownika — inaczej przecieka.
+     */
+    private Scope scope = Scope.CALLER;
+
+    public enum Scope {
+        GROUPS,
+        CALLER
+    }
+}
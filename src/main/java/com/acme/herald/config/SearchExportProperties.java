@@ -0,0 +1,20 @@
+package com.acme.herald.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@ConfigurationProperties(prefix = "herald.jira.search-export")
+public class SearchExportProperties {
+    /** Strona z Jiry; w pamięci są najwyżej dwie (zapisywana + pobierana w tle). */
+    private int pageSize = 100;
+    private int maxItems = 20_000;
+}
@@ -0,0 +1,34 @@
+package com.acme.herald.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@ConfigurationProperties(prefix = "herald.jira.search-index")
+public class SearchIndexProperties {
+    /** Domyślnie wyłączony: wymaga tokena konta technicznego z odczytem całego projektu. */
+    private boolean enabled = false;
+    /** PAT / "Bearer ..." / "Basic ..." konta technicznego używany wyłącznie przez crawler. */
+    private String serviceToken;
+    /** Co ile dociągamy zmiany (updated >= ostatni sync). */
+    private Duration syncInterval = Duration.ofMinutes(1);
+    /** Co ile pełny przebieg od zera (usunięte / przeniesione issue, zmiany uprawnień). */
+    private Duration fullSyncInterval = Duration.ofHours(6);
+    /** Zakładka na precyzję minutową "updated" w JQL. */
+    private Duration overlap = Duration.ofMinutes(2);
+    private int pageSize = 100;
+    /** Twardy limit dokumentów w pamięci. */
+    private int maxDocs = 200_000;
+    /** Ile kandydatów z indeksu sprawdzamy w Jirze na jeden wynik (część może być niewidoczna). */
+    private int candidateFactor = 3;
+}
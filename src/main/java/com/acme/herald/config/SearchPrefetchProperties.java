@@ -0,0 +1,27 @@
+package com.acme.herald.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@ConfigurationProperties(prefix = "herald.jira.search-prefetch")
+public class SearchPrefetchProperties {
+    private boolean enabled = true;
+    /** Po tym czasie bez pobrania strona jest porzucana (i anulowana, jeśli jeszcze leci). */
+    private Duration ttl = Duration.ofSeconds(20);
+    /** Ile stron naraz trzymamy / pobieramy dla jednego wywołującego. */
+    private int maxPerUser = 2;
+    private int maxEntries = 1_000;
+    /** false = prefetch dopiero, gdy klient faktycznie stronicuje (startAt > 0) — większość zapytań kończy się na 1. stronie. */
+    private boolean fromFirstPage = false;
+}
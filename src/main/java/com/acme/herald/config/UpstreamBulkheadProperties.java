@@ -0,0 +1,32 @@
+package com.acme.herald.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@ConfigurationProperties(prefix = "herald.upstream.bulkhead")
+public class UpstreamBulkheadProperties {
+    private Limit jira = new Limit(true, 64, Duration.ofSeconds(2));
+    /** Limit per base URL modelu LLM (osobny semafor dla każdego upstreamu). */
+    private Limit llm = new Limit(true, 16, Duration.ofSeconds(30));
+
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Limit {
+        private boolean enabled = true;
+        private int maxConcurrent = 32;
+        private Duration acquireTimeout = Duration.ofSeconds(5);
+    }
+}
@@ -56,7 +56,7 @@ public class ChatDtos {
             Integer max_tokens,
 
             @Schema(
-                    description = "Streaming flag. Currently the proxy forces stream=false (non-streaming response).",
+                    description = "Streaming flag. Ignored by /api/llm/chat, /chat/completions and /chat/batch (always non-streaming); use /api/llm/chat/stream for SSE streaming.",
                     example = "false"
             )
             Boolean stream
@@ -136,4 +136,45 @@ public class ChatDtos {
             )
             Map<String, Object> raw
     ) {}
+
+    @Schema(description = "Batch of independent chat requests executed concurrently by the proxy.")
+    public record BatchRequest(
+            @Schema(description = "Independent chat requests (each with its own model). Results are returned in the same order.")
+            List<ChatRequest> requests,
+
+            @Schema(description = "Optional concurrency cap for this batch (bounded by server configuration).", example = "4")
+            Integer maxConcurrency
+    ) {}
+
+    @Schema(description = "Error of a single batch item.")
+    public record BatchItemError(
+            @Schema(description = "Application-level error code.", example = "LLM_UNAVAILABLE")
+            String code,
+
+            @Schema(description = "Human-readable error message.")
+            String message,
+
+            @Schema(description = "HTTP status the item would have had as a standalone call.", example = "503")
+            int status
+    ) {}
+
+    @Schema(description = "Result of a single batch item: either reply or error is set.")
+    public record BatchItem(
+            @Schema(description = "Index of the request in the batch.", example = "0")
+            int index,
+
+            @Schema(description = "Simplified reply (null on error).")
+            ProxyReply reply,
+
+            @Schema(description = "Response cache status for this item (HIT / MISS / BYPASS / OFF).", example = "MISS")
+            String cacheStatus,
+
+            @Schema(description = "Error (null on success).")
+            BatchItemError error
+    ) {}
+
+    @Schema(description = "Batch results in request order.")
+    public record BatchResponse(
+            List<BatchItem> items
+    ) {}
 }
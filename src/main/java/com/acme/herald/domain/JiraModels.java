@@ -65,6 +65,15 @@ public class JiraModels {
     public record CreateIssueResponse(String id, String key, String self) {
     }
 
+    /** POST /issue/bulk: issues = utworzone (w kolejności elementów), errors = odrzucone elementy. */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record BulkCreateResponse(List<CreateIssueResponse> issues, List<BulkCreateError> errors) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record BulkCreateError(int status, JsonNode elementErrors, int failedElementNumber) {
+    }
+
     public record SearchResponse(int startAt, int maxResults, int total, List<JsonNode> issues) {
     }
 
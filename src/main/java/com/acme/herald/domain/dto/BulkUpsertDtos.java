@@ -0,0 +1,65 @@
+package com.acme.herald.domain.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+public final class BulkUpsertDtos {
+    private BulkUpsertDtos() {}
+
+    @Schema(description = "Many Smart Templates to create or update in one call.")
+    public record BulkTemplatesRequest(
+            @Schema(description = "Templates; results are returned in the same order.")
+            List<UpsertTemplate> items
+    ) {}
+
+    @Schema(description = "Many Smart Cases to create or update in one call.")
+    public record BulkCasesRequest(
+            @Schema(description = "Cases; results are returned in the same order.")
+            List<UpsertCase> items
+    ) {}
+
+    @Schema(description = "Error of a single bulk item.")
+    public record BulkItemError(
+            @Schema(description = "Application-level error code.", example = "JIRA_REJECTED")
+            String code,
+
+            @Schema(description = "Human-readable error message.")
+            String message,
+
+            @Schema(description = "HTTP status the item would have had as a standalone call.", example = "400")
+            int status
+    ) {}
+
+    @Schema(description = "Result of a single bulk item: either issueKey or error is set.")
+    public record BulkItem(
+            @Schema(description = "Index of the item in the request.", example = "0")
+            int index,
+
+            @Schema(description = "Logical id of the item (templateId / caseId).", example = "tpl-risk-assessment-v1")
+            String id,
+
+            @Schema(description = "Provider issue key (null on error).", example = "ABC-123")
+            String issueKey,
+
+            @Schema(description = "CREATED or UPDATED (null on error).", example = "CREATED")
+            String action,
+
+            @Schema(description = "Error (null on success).")
+            BulkItemError error
+    ) {}
+
+    @Schema(description = "Bulk upsert results in request order.")
+    public record BulkResponse(
+            List<BulkItem> items,
+
+            @Schema(description = "Number of created issues.", example = "120")
+            int created,
+
+            @Schema(description = "Number of updated issues.", example = "30")
+            int updated,
+
+            @Schema(description = "Number of failed items.", example = "2")
+            int failed
+    ) {}
+}
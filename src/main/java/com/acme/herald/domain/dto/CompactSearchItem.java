@@ -0,0 +1,43 @@
+package com.acme.herald.domain.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Compact search hit: only the values list views need (no payload / description).")
+public record CompactSearchItem(
+
+        @Schema(description = "Provider issue key.", example = "ABC-123")
+        String issueKey,
+
+        @Schema(description = "Issue summary.", example = "Onboarding checklist")
+        String summary,
+
+        @Schema(description = "Provider workflow status name.", example = "Published")
+        String status,
+
+        @Schema(description = "Provider issue type name.", example = "Task")
+        String issueType,
+
+        @Schema(description = "Issue labels.", example = "[\"herald\",\"template\"]")
+        List<String> labels,
+
+        @Schema(description = "Herald template id (configured templateId field).", example = "tpl_onboarding")
+        String templateId,
+
+        @Schema(description = "Herald case id (configured caseId field).", example = "case_42")
+        String caseId,
+
+        @Schema(description = "Template status (configured templateStatus field).", example = "PUBLISHED")
+        String templateStatus,
+
+        @Schema(description = "Case status (configured caseStatus field).", example = "IN_PROGRESS")
+        String caseStatus,
+
+        @Schema(description = "Average rating (configured ratingAvg field).", example = "4.5")
+        Double ratingAvg,
+
+        @Schema(description = "Last update timestamp as returned by the Provider.", example = "2025-01-31T10:15:30.000+0100")
+        String updated
+) {
+}
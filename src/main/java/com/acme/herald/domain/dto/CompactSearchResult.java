@@ -0,0 +1,20 @@
+package com.acme.herald.domain.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Compact search response.")
+public record CompactSearchResult(
+        @Schema(description = "List of matched items.", example = "[{\"issueKey\":\"ABC-123\",\"summary\":\"Example\",\"status\":\"Open\"}]")
+        List<CompactSearchItem> items,
+
+        @Schema(description = "Offset of the first returned item.", example = "0")
+        int startAt,
+
+        @Schema(description = "Total number of matches reported by the Provider.", example = "137")
+        int total,
+
+        @Schema(description = "startAt for the next page; null when this is the last page.", example = "50", nullable = true)
+        Integer nextStartAt
+) {}
@@ -7,5 +7,14 @@ import java.util.List;
 @Schema(description = "Search response containing a list of matching items.")
 public record SearchResult(
         @Schema(description = "List of matched items.", example = "[{\"issueKey\":\"ABC-123\",\"fields\":{\"summary\":\"Example\"}}]")
-        List<SearchItem> items
+        List<SearchItem> items,
+
+        @Schema(description = "Offset of the first returned item.", example = "0")
+        int startAt,
+
+        @Schema(description = "Total number of matches reported by the Provider.", example = "137")
+        int total,
+
+        @Schema(description = "startAt for the next page; null when this is the last page.", example = "50", nullable = true)
+        Integer nextStartAt
 ) {}
@@ -1,7 +1,7 @@
 package com.acme.herald.feedback;
 
+import com.acme.herald.auth.PermissionService;
 import com.acme.herald.config.JiraConfigService;
-import com.acme.herald.config.JiraProperties;
 import com.acme.herald.domain.JiraModels;
 import com.acme.herald.domain.dto.FeedbackDtos;
 import com.acme.herald.provider.JiraProvider;
@@ -34,16 +34,15 @@ public class FeedbackService {
      * jako "storage issue" – dokładnie tak jak challenges. Jeśli chcesz mieć osobne pole
      * feedbackIssueKey, dopisz je do JiraConfigService i podmień getter tutaj.
      */
-    private static final String PERM_ADMIN = "ADMINISTER_PROJECTS";
     private static final Pattern SAFE_ID = Pattern.compile("^[a-zA-Z0-9_\\-]{6,64}$");
 
     private static final Set<String> ALLOWED_STATUS = Set.of("TODO", "IN_PROGRESS", "DONE", "REJECTED");
     private static final Set<String> ALLOWED_TYPE = Set.of("BUG", "IDEA");
 
     private final JiraProvider jira;
-    private final JiraProperties jiraProps;
     private final JiraConfigService jiraConfigService;
     private final JsonMapper json;
+    private final PermissionService permissions;
 
     // ───────────────────────────── Public API ─────────────────────────────
 
@@ -205,8 +204,9 @@ public class FeedbackService {
     // ───────────────────────────── Storage ─────────────────────────────
 
     private FeedbackStore loadStore(String issueKey) {
+        // błąd Jiry (5xx/timeout) leci wyżej — pusty store nadpisałby wpisy przy zapisie
+        JsonNode v = jira.getIssueProperty(issueKey, PROP_KEY);
         try {
-            JsonNode v = jira.getIssueProperty(issueKey, PROP_KEY);
 
             if (v == null || v.isMissingNode() || v.isNull() || (v.isObject() && v.size() == 0)) {
                 return new FeedbackStore(1, null, List.of());
@@ -275,12 +275,7 @@ public class FeedbackService {
     }
 
     private boolean isProjectAdmin() {
-        JiraModels.PermissionsResponse perms = jira.getMyPermissions(jiraProps.getProjectKey(), null, null);
-        var map = perms != null ? perms.permissions() : null;
-
-        return map != null
-                && map.get(PERM_ADMIN) != null
-                && Boolean.TRUE.equals(map.get(PERM_ADMIN).havePermission());
+        return permissions.isProjectAdmin();
     }
 
     // ───────────────────────────── Config ─────────────────────────────
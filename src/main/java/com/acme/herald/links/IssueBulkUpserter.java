@@ -0,0 +1,317 @@
+package com.acme.herald.links;
+
+import com.acme.herald.auth.JiraAuthContext;
+import com.acme.herald.auth.TokenPayload;
+import com.acme.herald.config.BulkUpsertProperties;
+import com.acme.herald.domain.JiraModels;
+import com.acme.herald.domain.dto.BulkUpsertDtos;
+import com.acme.herald.provider.JiraProvider;
+import com.acme.herald.provider.JiraUpstreamException;
+import com.acme.herald.web.Jql;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+
+/**
+ * Wspólny silnik bulk upsertu template / case:
+ * 1. istniejące klucze — JQL (id1 OR id2 ...) porcjami po lookupChunkSize, dopasowanie dokładne po wartości pola,
+ * 2. update równolegle (Jira nie ma bulk update), create porcjami przez POST /issue/bulk,
+ * 3. po utworzeniu: wpis w IssueKeyDirectory i link do template — równolegle.
+ *
+ * Błąd pozycji nie przerywa reszty; wynik per pozycja w kolejności requestu.
+ */
+@Slf4j
+@Service
+public class IssueBulkUpserter {
+    private final JiraProvider jira;
+    private final IssueKeyDirectory issueKeys;
+    private final LinkService linkService;
+    private final BulkUpsertProperties props;
+    private final ExecutorService executor;
+    private final JsonMapper json;
+
+    public IssueBulkUpserter(
+            JiraProvider jira,
+            IssueKeyDirectory issueKeys,
+            LinkService linkService,
+            BulkUpsertProperties props,
+            @Qualifier("fanOutExecutor") ExecutorService executor,
+            JsonMapper json
+    ) {
+        this.jira = jira;
+        this.issueKeys = issueKeys;
+        this.linkService = linkService;
+        this.props = props;
+        this.executor = executor;
+        this.json = json;
+    }
+
+    /** Gdzie szukać istniejących issue: projekt + typ + pole z logicznym id. */
+    public record Target(IssueKeyDirectory.Kind kind, String projectKey, String issueType, String idField) {}
+
+    /**
+     * Jedna pozycja: pola issue gotowe do create/update, opcjonalny link do template po utworzeniu.
+     * validationError != null -> pozycja odrzucona walidacją przed wysłaniem do Jiry.
+     */
+    public record Item(String id, Map<String, Object> fields, String linkTemplateId, String linkTypeId, String validationError) {
+        public static Item of(String id, Map<String, Object> fields, String linkTemplateId, String linkTypeId) {
+            return new Item(id, fields, linkTemplateId, linkTypeId, null);
+        }
+
+        public static Item invalid(String id, String message) {
+            return new Item(id, null, null, null, message);
+        }
+    }
+
+    public BulkUpsertDtos.BulkResponse upsert(Target target, List<Item> items) {
+        if (items == null || items.isEmpty()) throw new IllegalArgumentException("Bulk nie zawiera żadnych pozycji.");
+        if (items.size() > props.getMaxItems()) {
+            throw new IllegalArgumentException("Bulk może zawierać maksymalnie %d pozycji.".formatted(props.getMaxItems()));
+        }
+
+        int n = items.size();
+        BulkUpsertDtos.BulkItem[] results = new BulkUpsertDtos.BulkItem[n];
+        Runner runner = new Runner(JiraAuthContext.current(), new Semaphore(Math.max(1, props.getMaxConcurrency())));
+
+        // walidacja i duplikaty id (wygrywa pierwsze wystąpienie)
+        List<Integer> valid = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < n; i++) {
+            Item item = items.get(i);
+            if (item.validationError() != null) {
+                results[i] = error(i, item.id(), "BAD_REQUEST", item.validationError(), 400);
+            } else if (!seen.add(item.id())) {
+                results[i] = error(i, item.id(), "DUPLICATE_ID", "Id występuje w bulku więcej niż raz.", 409);
+            } else {
+                valid.add(i);
+            }
+        }
+
+        Map<String, String> existing = resolveKeys(runner, target, valid.stream().map(i -> items.get(i).id()).toList());
+
+        List<CompletableFuture<Void>> writes = new ArrayList<>();
+        List<Integer> toCreate = new ArrayList<>();
+        for (int i : valid) {
+            Item item = items.get(i);
+            String key = existing.get(item.id());
+            if (key == null) {
+                toCreate.add(i);
+                continue;
+            }
+            writes.add(runner.async(() -> {
+                try {
+                    jira.updateIssue(key, Map.of("fields", item.fields()));
+                    issueKeys.remember(target.kind(), item.id(), key);
+                    results[i] = new BulkUpsertDtos.BulkItem(i, item.id(), key, "UPDATED", null);
+                } catch (RuntimeException e) {
+                    results[i] = error(i, item.id(), e);
+                }
+            }));
+        }
+
+        int chunkSize = Math.max(1, Math.min(50, props.getCreateChunkSize()));
+        for (int from = 0; from < toCreate.size(); from += chunkSize) {
+            List<Integer> chunk = toCreate.subList(from, Math.min(from + chunkSize, toCreate.size()));
+            writes.add(runner.async(() -> createChunk(chunk, items, results)));
+        }
+        joinAll(writes);
+
+        // po utworzeniu: mapa id -> klucz i linki do template
+        List<CompletableFuture<Void>> after = new ArrayList<>();
+        for (int i : toCreate) {
+            BulkUpsertDtos.BulkItem r = results[i];
+            if (r == null || r.issueKey() == null) continue;
+            Item item = items.get(i);
+            after.add(runner.async(() -> afterCreate(target, item, r.issueKey())));
+        }
+        joinAll(after);
+
+        int created = 0, updated = 0, failed = 0;
+        for (int i = 0; i < n; i++) {
+            if (results[i] == null) results[i] = error(i, items.get(i).id(), "INTERNAL_ERROR", "Wystąpił błąd serwera.", 500);
+            BulkUpsertDtos.BulkItem r = results[i];
+            if (r.error() != null) failed++;
+            else if ("CREATED".equals(r.action())) created++;
+            else updated++;
+        }
+        return new BulkUpsertDtos.BulkResponse(List.of(results), created, updated, failed);
+    }
+
+    /** id -> issueKey istniejących issue; dokładne porównanie, bo "~" dopasowuje też podobne id. */
+    private Map<String, String> resolveKeys(Runner runner, Target target, List<String> ids) {
+        Map<String, String> out = new ConcurrentHashMap<>();
+        int chunkSize = Math.max(1, props.getLookupChunkSize());
+
+        List<CompletableFuture<Void>> lookups = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            List<String> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+            lookups.add(runner.async(() -> lookupChunk(target, chunk, out)));
+        }
+        joinAll(lookups);
+        return out;
+    }
+
+    private void lookupChunk(Target target, List<String> ids, Map<String, String> out) {
+        Jql.Field idField = Jql.field(target.idField());
+        String jql = Jql.and(
+                Jql.field("project").eq(target.projectKey()),
+                Jql.field("issuetype").eq(target.issueType()),
+                Jql.or(ids.stream().map(idField::contains).toArray(Jql.Condition[]::new))
+        ).render();
+
+        Set<String> wanted = new HashSet<>(ids);
+        List<String> fields = List.of(target.idField());
+        int startAt = 0;
+        while (true) {
+            JiraModels.SearchResponse page = jira.search(jql, startAt, 100, fields);
+            List<JsonNode> issues = page.issues() != null ? page.issues() : List.of();
+            for (JsonNode issue : issues) {
+                String id = issue.path("fields").path(target.idField()).asString(null);
+                String key = issue.path("key").asString(null);
+                if (id != null && key != null && wanted.contains(id)) out.putIfAbsent(id, key);
+            }
+            startAt += issues.size();
+            if (issues.isEmpty() || startAt >= page.total()) return;
+        }
+    }
+
+    private void createChunk(List<Integer> chunk, List<Item> items, BulkUpsertDtos.BulkItem[] results) {
+        List<Map<String, Object>> updates = chunk.stream()
+                .map(i -> Map.<String, Object>of("fields", items.get(i).fields()))
+                .toList();
+
+        JiraModels.BulkCreateResponse resp;
+        boolean rejected = false;
+        try {
+            resp = jira.createIssues(updates);
+        } catch (JiraUpstreamException e) {
+            // 400 = nic nie utworzono; błędy per element w body (errors[].failedElementNumber)
+            resp = rejectedChunk(e);
+            if (resp == null) {
+                for (int i : chunk) results[i] = error(i, items.get(i).id(), e);
+                return;
+            }
+            rejected = true;
+        } catch (RuntimeException e) {
+            for (int i : chunk) results[i] = error(i, items.get(i).id(), e);
+            return;
+        }
+
+        Map<Integer, JiraModels.BulkCreateError> failures = new HashMap<>();
+        if (resp.errors() != null) {
+            for (var err : resp.errors()) failures.put(err.failedElementNumber(), err);
+        }
+
+        // issues są w kolejności elementów, z pominięciem odrzuconych
+        Iterator<JiraModels.CreateIssueResponse> created = resp.issues() != null
+                ? resp.issues().iterator()
+                : List.<JiraModels.CreateIssueResponse>of().iterator();
+        for (int e = 0; e < chunk.size(); e++) {
+            int i = chunk.get(e);
+            String id = items.get(i).id();
+            JiraModels.BulkCreateError err = failures.get(e);
+            if (err != null) {
+                results[i] = error(i, id, "JIRA_REJECTED", elementErrors(err.elementErrors()), err.status() > 0 ? err.status() : 400);
+            } else if (created.hasNext()) {
+                results[i] = new BulkUpsertDtos.BulkItem(i, id, created.next().key(), "CREATED", null);
+            } else if (rejected) {
+                // poprawna pozycja w odrzuconym chunku — do ponowienia
+                results[i] = error(i, id, "CHUNK_REJECTED", "Nie utworzono: Jira odrzuciła porcję z powodu innych pozycji.", 409);
+            } else {
+                results[i] = error(i, id, "INTERNAL_ERROR", "Jira nie zwróciła klucza utworzonego issue.", 500);
+            }
+        }
+    }
+
+    /** Body 400 z POST /issue/bulk jako BulkCreateResponse albo null, gdy to nie lista błędów per element. */
+    private JiraModels.BulkCreateResponse rejectedChunk(JiraUpstreamException e) {
+        if (e.status() != 400 || e.body() == null || e.body().isBlank()) return null;
+        try {
+            JiraModels.BulkCreateResponse r = json.readValue(e.body(), JiraModels.BulkCreateResponse.class);
+            return r.errors() != null && !r.errors().isEmpty() ? r : null;
+        } catch (RuntimeException parse) {
+            return null;
+        }
+    }
+
+    private void afterCreate(Target target, Item item, String issueKey) {
+        issueKeys.remember(target.kind(), item.id(), issueKey);
+        if (!isNotBlank(item.linkTemplateId()) || !isNotBlank(item.linkTypeId())) return;
+
+        // MVP jak w pojedynczym upsercie: brak linku nie psuje pozycji, tylko log
+        LinkService.TemplateLinkInfo linkInfo = linkService.resolveTemplateLinkInfo(item.linkTemplateId(), item.linkTypeId());
+        if (linkInfo.isLinkable()) linkService.safeCreateLinkFallback(linkInfo, issueKey);
+    }
+
+    /** {"errorMessages":[...],"errors":{"field":"msg"}} -> jedna linia. */
+    private static String elementErrors(JsonNode e) {
+        List<String> out = new ArrayList<>();
+        if (e != null) {
+            for (JsonNode m : e.path("errorMessages")) out.add(m.asString(""));
+            for (var f : e.path("errors").properties()) out.add(f.getKey() + ": " + f.getValue().asString(""));
+        }
+        return out.isEmpty() ? "Jira odrzuciła pozycję." : String.join("; ", out);
+    }
+
+    private static BulkUpsertDtos.BulkItem error(int index, String id, RuntimeException e) {
+        if (e instanceof JiraUpstreamException u) {
+            return error(index, id, "JIRA_ERROR", LinkService.safeMsg(u), u.status());
+        }
+        if (e instanceof IllegalArgumentException a) return error(index, id, "BAD_REQUEST", a.getMessage(), 400);
+
+        log.error("Bulk upsert item {} ({}) failed", index, id, e);
+        return error(index, id, "INTERNAL_ERROR", "Wystąpił błąd serwera.", 500);
+    }
+
+    private static BulkUpsertDtos.BulkItem error(int index, String id, String code, String message, int status) {
+        return new BulkUpsertDtos.BulkItem(index, id, null, null, new BulkUpsertDtos.BulkItemError(code, message, status));
+    }
+
+    private static void joinAll(List<CompletableFuture<Void>> tasks) {
+        try {
+            CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw e;
+        }
+    }
+
+    /** Zadania na fanOutExecutor z kontekstem auth wywołującego i limitem równoległości. */
+    private final class Runner {
+        private final TokenPayload auth;
+        private final Semaphore permits;
+
+        private Runner(TokenPayload auth, Semaphore permits) {
+            this.auth = auth;
+            this.permits = permits;
+        }
+
+        CompletableFuture<Void> async(Runnable body) {
+            return CompletableFuture.runAsync(JiraAuthContext.wrap(auth, () -> {
+                permits.acquireUninterruptibly();
+                try {
+                    body.run();
+                } finally {
+                    permits.release();
+                }
+            }), executor);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.acme.herald.links;
+
+import com.acme.herald.config.IssueKeyMapProperties;
+import com.acme.herald.config.JiraProperties;
+import com.acme.herald.domain.JiraModels;
+import com.acme.herald.provider.JiraProvider;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.JsonNode;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Mapa templateId / caseId -> issueKey, żeby upsert nie robił wyszukiwania JQL (~) za każdym razem.
+ *
+ * Kolejność: pamięć -> project property (herald.idmap.&lt;kind&gt;.&lt;id&gt;, jeden GET po kluczu) ->
+ * JQL (loader). Trafienie z JQL i nowo utworzone issue są zapisywane w obu miejscach.
+ * Zapis property wymaga uprawnień admina projektu — bez nich mapa zostaje tylko w pamięci.
+ * Wpis nieaktualny (issue usunięte) wywołujący zgłasza przez forget i wraca do JQL.
+ */
+@Slf4j
+@Service
+public class IssueKeyDirectory {
+    private static final String PROP_PREFIX = "herald.idmap.";
+    /** Ile trafień ~ pobrać do dokładnego porównania w exactKeyOrNull. */
+    public static final int EXACT_MATCH_CANDIDATES = 20;
+    private static final Pattern SAFE_ID = Pattern.compile("^[A-Za-z0-9_.-]{1,200}$");
+
+    public enum Kind {
+        TEMPLATE, CASE;
+
+        String prefix() {
+            return PROP_PREFIX + name().toLowerCase(Locale.ROOT) + ".";
+        }
+    }
+
+    private final JiraProvider jira;
+    private final JiraProperties jiraProps;
+    private final IssueKeyMapProperties props;
+
+    private final Map<String, String> keys = new ConcurrentHashMap<>();
+    private final Set<String> stale = ConcurrentHashMap.newKeySet();
+    private final Counter memoryHits;
+    private final Counter propertyHits;
+    private final Counter searches;
+
+    public IssueKeyDirectory(
+            JiraProvider jira,
+            JiraProperties jiraProps,
+            IssueKeyMapProperties props,
+            MeterRegistry meters
+    ) {
+        this.jira = jira;
+        this.jiraProps = jiraProps;
+        this.props = props;
+        this.memoryHits = meters.counter("herald.jira.issue_key_map", "result", "memory");
+        this.propertyHits = meters.counter("herald.jira.issue_key_map", "result", "property");
+        this.searches = meters.counter("herald.jira.issue_key_map", "result", "search");
+        meters.gaugeMapSize("herald.jira.issue_key_map.size", List.of(), keys);
+    }
+
+    /**
+     * issueKey dla id albo null (loader = wyszukiwanie JQL, wołane tylko przy braku wpisu).
+     * Loader musi zwracać wyłącznie dokładne trafienie (patrz exactKeyOrNull) — wynik trafia do mapy i property.
+     */
+    public String resolve(Kind kind, String id, Supplier<String> loader) {
+        if (!props.isEnabled() || id == null || id.isBlank()) return loader.get();
+
+        String propKey = propertyKey(kind, id);
+        String key = keys.get(propKey);
+        if (key != null) {
+            memoryHits.increment();
+            return key;
+        }
+
+        key = readProperty(propKey);
+        if (key != null) {
+            propertyHits.increment();
+            put(propKey, key);
+            return key;
+        }
+
+        searches.increment();
+        key = loader.get();
+        if (key != null) remember(kind, id, key);
+        return key;
+    }
+
+    /**
+     * Klucz issue, którego pole idField ma dokładnie wartość id, albo null.
+     * JQL ~ jest rozmyte (abc trafia też abc-2), więc wynik wyszukiwania trzeba pobrać z polem idField i porównać.
+     */
+    public static String exactKeyOrNull(JiraModels.SearchResponse search, String idField, String id) {
+        if (search == null || search.issues() == null || id == null) return null;
+        String wanted = id.trim();
+        for (JsonNode issue : search.issues()) {
+            String value = issue.path("fields").path(idField).asString(null);
+            String key = issue.path("key").asString(null);
+            if (value != null && key != null && !key.isBlank() && wanted.equals(value.trim())) return key;
+        }
+        return null;
+    }
+
+    /** Po utworzeniu issue albo trafieniu z JQL. */
+    public void remember(Kind kind, String id, String issueKey) {
+        if (!props.isEnabled() || id == null || id.isBlank() || issueKey == null || issueKey.isBlank()) return;
+
+        String propKey = propertyKey(kind, id);
+        String prev = keys.get(propKey);
+        put(propKey, issueKey);
+        stale.remove(propKey);
+        if (issueKey.equals(prev) || !props.isPersist()) return;
+
+        try {
+            jira.setProjectProperty(jiraProps.getProjectKey(), propKey, Map.of("issueKey", issueKey));
+        } catch (RuntimeException e) {
+            // zwykle brak uprawnień admina projektu — mapa działa wtedy tylko w tej instancji
+            log.debug("Could not persist {} -> {}: {}", propKey, issueKey, LinkService.safeMsg(e));
+        }
+    }
+
+    /** Wpis wskazał issue, którego już nie ma — następny resolve pójdzie do JQL. */
+    public void forget(Kind kind, String id) {
+        if (id == null || id.isBlank()) return;
+        String propKey = propertyKey(kind, id);
+        keys.remove(propKey);
+        // property nadpisze remember po ponownym znalezieniu; do tego czasu jej nie czytamy
+        stale.add(propKey);
+    }
+
+    private String readProperty(String propKey) {
+        if (!props.isPersist() || stale.contains(propKey)) return null;
+        try {
+            JsonNode v = jira.getProjectProperty(jiraProps.getProjectKey(), propKey);
+            String key = v == null ? null : v.path("issueKey").asString(null);
+            return key == null || key.isBlank() ? null : key;
+        } catch (RuntimeException e) {
+            log.debug("Could not read {}: {}", propKey, LinkService.safeMsg(e));
+            return null;
+        }
+    }
+
+    private void put(String propKey, String issueKey) {
+        if (keys.size() >= props.getMaxEntries()) keys.clear();
+        keys.put(propKey, issueKey);
+    }
+
+    /** Czytelne id wprost, reszta (spacje, znaki spoza ASCII, długie) jako hash. */
+    private static String propertyKey(Kind kind, String id) {
+        String v = id.trim();
+        if (SAFE_ID.matcher(v).matches()) return kind.prefix() + v;
+        try {
+            byte[] h = MessageDigest.getInstance("SHA-256").digest(v.getBytes(StandardCharsets.UTF_8));
+            return kind.prefix() + "h" + HexFormat.of().formatHex(h, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,9 +1,10 @@
 package com.acme.herald.links;
 
 import com.acme.herald.config.JiraConfigService;
+import com.acme.herald.config.JiraIntegrationConfigDtos;
 import com.acme.herald.domain.JiraModels;
 import com.acme.herald.provider.JiraProvider;
-import com.acme.herald.web.JqlUtils;
+import com.acme.herald.web.Jql;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -21,6 +22,7 @@ import static org.apache.commons.lang3.StringUtils.isNotBlank;
 public class LinkService {
     private final JiraProvider jira;
     private final JiraConfigService jiraCfg;
+    private final IssueKeyDirectory issueKeys;
 
     public List<JiraModels.IssueLinkType> list() {
         return jira.getIssueLinkTypes();
@@ -44,25 +46,8 @@ public class LinkService {
             return new TemplateLinkInfo(null, null);
         }
 
-        String jql = "project = %s AND issuetype = \"%s\" AND %s ~ \"%s\""
-                .formatted(
-                        cfg.projectKey(),
-                        JqlUtils.escapeJql(cfg.issueTypes().template()),
-                        JqlUtils.toJqlField(templateIdField),
-                        JqlUtils.escapeJql(templateId)
-                );
-
-        JiraModels.SearchResponse search = jira.search(jql, 0, 1);
-        if (search == null || search.total() <= 0) {
-            return new TemplateLinkInfo(null, null);
-        }
-
-        List<JsonNode> issues = search.issues();
-        if (issues == null || issues.isEmpty()) {
-            return new TemplateLinkInfo(null, null);
-        }
-
-        String templateKey = issues.getFirst().path("key").asString(null);
+        String templateKey = issueKeys.resolve(IssueKeyDirectory.Kind.TEMPLATE, templateId,
+                () -> findTemplateKeyOrNull(cfg, templateIdField, templateId));
         if (!isNotBlank(templateKey)) {
             return new TemplateLinkInfo(null, null);
         }
@@ -70,6 +55,18 @@ public class LinkService {
         return new TemplateLinkInfo(templateKey, linkTypeId);
     }
 
+    private String findTemplateKeyOrNull(JiraIntegrationConfigDtos.JiraIntegrationConfigDto cfg, String templateIdField, String templateId) {
+        String jql = Jql.and(
+                Jql.field("project").eq(cfg.projectKey()),
+                Jql.field("issuetype").eq(cfg.issueTypes().template()),
+                Jql.field(templateIdField).contains(templateId)
+        ).render();
+
+        // ~ jest rozmyte — liczy się wyłącznie issue z dokładnie tym templateId
+        JiraModels.SearchResponse search = jira.search(jql, 0, IssueKeyDirectory.EXACT_MATCH_CANDIDATES, List.of(templateIdField));
+        return IssueKeyDirectory.exactKeyOrNull(search, templateIdField, templateId);
+    }
+
     public void ensureLinked(TemplateLinkInfo linkInfo, String caseKey) {
         if (!linkInfo.isLinkable() || !isNotBlank(caseKey)) return;
 
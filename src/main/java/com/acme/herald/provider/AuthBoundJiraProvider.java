@@ -0,0 +1,41 @@
+package com.acme.herald.provider;
+
+import com.acme.herald.auth.JiraAuthContext;
+import com.acme.herald.auth.TokenPayload;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+
+/**
+ * JiraProvider związany na stałe z konkretnym TokenPayload (patrz JiraProvider.withAuth).
+ * Każde wywołanie idzie do delegata wewnątrz JiraAuthContext.callAs.
+ */
+final class AuthBoundJiraProvider {
+    private AuthBoundJiraProvider() {}
+
+    static JiraProvider bind(JiraProvider delegate, TokenPayload auth) {
+        if (auth == null) throw new IllegalArgumentException("auth is required");
+
+        return (JiraProvider) Proxy.newProxyInstance(
+                JiraProvider.class.getClassLoader(),
+                new Class<?>[]{JiraProvider.class},
+                (proxy, method, args) -> {
+                    if (method.getDeclaringClass() == Object.class) {
+                        return switch (method.getName()) {
+                            case "equals" -> proxy == args[0];
+                            case "hashCode" -> System.identityHashCode(proxy);
+                            default -> "AuthBoundJiraProvider(" + delegate + ")";
+                        };
+                    }
+                    if (method.getName().equals("withAuth")) {
+                        return bind(delegate, (TokenPayload) args[0]);
+                    }
+                    try (var ignored = JiraAuthContext.bind(auth)) {
+                        return method.invoke(delegate, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                }
+        );
+    }
+}
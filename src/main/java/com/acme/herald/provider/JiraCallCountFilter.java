@@ -0,0 +1,74 @@
+package com.acme.herald.provider;
+
+import com.acme.herald.config.JiraRequestMemoProperties;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Debug: dopisuje do odpowiedzi nagłówek z liczbą calli do Jiry wykonanych w trakcie requestu
+ * (po memo, czyli realnych round-tripów). Włączane przez herald.jira.request-memo.debug-header.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@RequiredArgsConstructor
+public class JiraCallCountFilter extends OncePerRequestFilter {
+
+    private final JiraRequestMemoProperties props;
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !props.isDebugHeader();
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest req, @NonNull HttpServletResponse res, @NonNull FilterChain chain)
+            throws ServletException, IOException {
+
+        var wrapped = new CallCountResponse(req, res, props.getDebugHeaderName());
+        try {
+            chain.doFilter(req, wrapped);
+        } finally {
+            // odpowiedź jeszcze niezacommitowana (np. mały body) -> dopisz nagłówek na końcu
+            wrapped.writeHeader();
+        }
+    }
+
+    private static final class CallCountResponse extends OnCommittedResponseWrapper {
+        private final HttpServletRequest req;
+        private final String headerName;
+        private boolean written;
+
+        CallCountResponse(HttpServletRequest req, HttpServletResponse res, String headerName) {
+            super(res);
+            this.req = req;
+            this.headerName = headerName;
+        }
+
+        @Override
+        protected void onResponseCommitted() {
+            writeHeader();
+        }
+
+        void writeHeader() {
+            if (written || isCommitted()) return;
+            written = true;
+
+            Object o = req.getAttribute(JiraRequestLedger.ATTR_LEDGER);
+            int calls = (o instanceof JiraRequestLedger l) ? l.upstreamCalls() : 0;
+            int hits = (o instanceof JiraRequestLedger l) ? l.memoHits() : 0;
+
+            setHeader(headerName, calls + "; memo-hits=" + hits);
+        }
+    }
+}
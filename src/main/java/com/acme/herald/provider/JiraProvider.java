@@ -23,13 +23,24 @@ public interface JiraProvider {
     void setProjectProperty(String projectKey, String propertyKey, Object propertyValue);
 
     IssueRef createIssue(Map<String, Object> body); // może zostać jak jest (Map jest OK jako request)
+
+    /** Jeden POST /issue/bulk (Jira przyjmuje do 50 elementów); częściowe błędy w errors. */
+    JiraModels.BulkCreateResponse createIssues(List<Map<String, Object>> issueUpdates);
     JsonNode getIssue(String issueKey, String expand);
     void updateIssue(String issueKey, Map<String, Object> body);
 
     void setVote(String issueKey, boolean up);
     void addWatcher(String issueKey, String accountIdOrName);
 
-    SearchResponse search(String jql, int startAt, int maxResults);
+    /** Minimalna projekcja, gdy potrzebny jest tylko key / total (key jest zawsze w odpowiedzi). */
+    List<String> MINIMAL_FIELDS = List.of("summary");
+
+    /** fields = projekcja pól Jiry (null/puste = wszystkie pola). */
+    SearchResponse search(String jql, int startAt, int maxResults, List<String> fields);
+
+    default SearchResponse search(String jql, int startAt, int maxResults) {
+        return search(jql, startAt, maxResults, null);
+    }
 
     void assignIssue(String key, AssigneeDtos.AssigneeReq payload);
     List<JiraModels.AssignableUser> findAssignableUsers(String issueKey, String projectKey, String query, int startAt, int maxResults);
@@ -55,4 +66,12 @@ public interface JiraProvider {
 
     // links
     List<JiraModels.IssueLinkType> getIssueLinkTypes();
+
+    /**
+     * Widok providera, który każde wywołanie wykonuje z podanym kontekstem auth —
+     * dla kodu poza wątkiem requestu (fan-out, prefetch, odświeżanie w tle).
+     */
+    default JiraProvider withAuth(TokenPayload auth) {
+        return AuthBoundJiraProvider.bind(this, auth);
+    }
 }
@@ -0,0 +1,87 @@
+package com.acme.herald.provider;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Stan per-request dla warstwy memo nad JiraProvider:
+ * - wyniki identycznych odczytów (getMe / getMyPermissions / getProjectProperty),
+ * - licznik calli, które faktycznie poszły do Jiry.
+ *
+ * Trzymany jako atrybut requestu, więc żyje dokładnie tyle co jeden HTTP request.
+ * Wątki fan-outu nie widzą atrybutów requestu — wywołujący przekazuje im ledger przez callWith.
+ */
+public final class JiraRequestLedger {
+    static final String ATTR_LEDGER = "herald.jiraLedger";
+
+    private static final ThreadLocal<JiraRequestLedger> BOUND = new ThreadLocal<>();
+
+    private final Map<String, Object> memo = new ConcurrentHashMap<>();
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    private final AtomicInteger memoHits = new AtomicInteger();
+
+    /** Ledger bieżącego requestu (albo związany przez callWith) albo null poza requestem. */
+    public static JiraRequestLedger currentOrNull() {
+        JiraRequestLedger bound = BOUND.get();
+        if (bound != null) return bound;
+
+        RequestAttributes attrs = RequestContextHolder.getRequestAttributes();
+        if (attrs == null) return null;
+
+        Object o = attrs.getAttribute(ATTR_LEDGER, RequestAttributes.SCOPE_REQUEST);
+        if (o instanceof JiraRequestLedger l) return l;
+
+        JiraRequestLedger created = new JiraRequestLedger();
+        attrs.setAttribute(ATTR_LEDGER, created, RequestAttributes.SCOPE_REQUEST);
+        return created;
+    }
+
+    /** Wykonuje body z ledgerem requestu związanym z bieżącym wątkiem (null = bez ledgera). */
+    public static <T> T callWith(JiraRequestLedger ledger, Supplier<T> body) {
+        if (ledger == null) return body.get();
+        JiraRequestLedger prev = BOUND.get();
+        BOUND.set(ledger);
+        try {
+            return body.get();
+        } finally {
+            if (prev != null) BOUND.set(prev);
+            else BOUND.remove();
+        }
+    }
+
+    public int upstreamCalls() {
+        return upstreamCalls.get();
+    }
+
+    public int memoHits() {
+        return memoHits.get();
+    }
+
+    void countUpstreamCall() {
+        upstreamCalls.incrementAndGet();
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> T get(String key) {
+        T v = (T) memo.get(key);
+        if (v != null) memoHits.incrementAndGet();
+        return v;
+    }
+
+    void put(String key, Object value) {
+        if (value != null) memo.put(key, value);
+    }
+
+    void evict(String key) {
+        memo.remove(key);
+    }
+
+    void clear() {
+        memo.clear();
+    }
+}
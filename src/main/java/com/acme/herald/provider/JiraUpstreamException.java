@@ -0,0 +1,44 @@
+package com.acme.herald.provider;
+
+/**
+ * Błąd HTTP zwrócony przez Jirę (ErrorDecoder Feigna). Niesie status, żeby warstwa
+ * resilience mogła odróżnić awarię upstreamu (5xx/429) od błędu po stronie klienta (4xx).
+ */
+public class JiraUpstreamException extends RuntimeException {
+    private final int status;
+    private final String methodKey;
+    private final String body;
+
+    public JiraUpstreamException(int status, String methodKey, String message) {
+        this(status, methodKey, message, null);
+    }
+
+    public JiraUpstreamException(int status, String methodKey, String message, String body) {
+        super(message);
+        this.status = status;
+        this.methodKey = methodKey;
+        this.body = body;
+    }
+
+    public int status() {
+        return status;
+    }
+
+    public String methodKey() {
+        return methodKey;
+    }
+
+    /** Surowe body odpowiedzi Jiry (np. errors[] z POST /issue/bulk) albo null. */
+    public String body() {
+        return body;
+    }
+
+    public boolean isNotFound() {
+        return status == 404;
+    }
+
+    /** 4xx poza 429 — Jira działa, tylko nie chce/nie ma (uprawnienia, brak zasobu, walidacja). */
+    public boolean isClientError() {
+        return status >= 400 && status < 500 && status != 429;
+    }
+}
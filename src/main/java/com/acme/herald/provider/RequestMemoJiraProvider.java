@@ -0,0 +1,240 @@
+package com.acme.herald.provider;
+
+import com.acme.herald.assignee.dto.AssigneeDtos;
+import com.acme.herald.auth.TokenPayload;
+import com.acme.herald.config.JiraRequestMemoProperties;
+import com.acme.herald.domain.JiraModels;
+import com.acme.herald.domain.JiraModels.IssueRef;
+import com.acme.herald.domain.JiraModels.SearchResponse;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+import tools.jackson.databind.JsonNode;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Warstwa memo nad JiraProvider w obrębie jednego HTTP requestu.
+ *
+ * Filtr autoryzacji, serwisy (vote/rating/comment/feedback...) i MeService wołają
+ * getMe / getMyPermissions / getProjectProperty (config) po kilka razy na request —
+ * tu identyczne odczyty idą do Jiry tylko raz. Poza requestem (brak RequestAttributes)
+ * warstwa jest przezroczysta.
+ *
+ * Dodatkowo liczy wszystkie calle do delegata (nagłówek debug, patrz JiraCallCountFilter).
+ */
+@Primary
+@Component
+public class RequestMemoJiraProvider implements JiraProvider {
+
+    private final JiraProvider delegate;
+    private final JiraRequestMemoProperties props;
+
+    public RequestMemoJiraProvider(
+            @Qualifier("resilientJiraProvider") JiraProvider delegate,
+            JiraRequestMemoProperties props
+    ) {
+        this.delegate = delegate;
+        this.props = props;
+    }
+
+    // ───────────── memoized reads ─────────────
+
+    @Override
+    public JiraModels.UserResponse getMe() {
+        return memo("me", delegate::getMe);
+    }
+
+    @Override
+    public JiraModels.PermissionsResponse getMyPermissions(String projectKey, String issueKey, List<String> permissions) {
+        String csv = permissions == null ? "" : String.join(",", permissions);
+        return memo("perms|" + projectKey + "|" + issueKey + "|" + csv,
+                () -> delegate.getMyPermissions(projectKey, issueKey, permissions));
+    }
+
+    @Override
+    public JsonNode getProjectProperty(String projectKey, String propertyKey) {
+        JsonNode v = memo(projectPropertyKey(projectKey, propertyKey),
+                () -> delegate.getProjectProperty(projectKey, propertyKey));
+        // JsonNode jest mutowalny — każdy konsument dostaje własną kopię
+        return v != null ? v.deepCopy() : null;
+    }
+
+    // ───────────── writes that invalidate memo ─────────────
+
+    @Override
+    public void setProjectProperty(String projectKey, String propertyKey, Object propertyValue) {
+        JiraRequestLedger ledger = ledger();
+        if (ledger != null) ledger.evict(projectPropertyKey(projectKey, propertyKey));
+        upstream(() -> delegate.setProjectProperty(projectKey, propertyKey, propertyValue));
+    }
+
+    @Override
+    public void revokeCurrentPat() {
+        JiraRequestLedger ledger = ledger();
+        if (ledger != null) ledger.clear();
+        upstream(delegate::revokeCurrentPat);
+    }
+
+    // ───────────── pass-through (counted) ─────────────
+
+    @Override
+    public TokenPayload createPatByUsernamePdWithMeta(String username, String pd, int days) {
+        return upstream(() -> delegate.createPatByUsernamePdWithMeta(username, pd, days));
+    }
+
+    @Override
+    public List<String> groupPicker(String query, List<String> exclude, int maxResults) {
+        return upstream(() -> delegate.groupPicker(query, exclude, maxResults));
+    }
+
+    @Override
+    public IssueRef createIssue(Map<String, Object> body) {
+        return upstream(() -> delegate.createIssue(body));
+    }
+
+    @Override
+    public JiraModels.BulkCreateResponse createIssues(List<Map<String, Object>> issueUpdates) {
+        return upstream(() -> delegate.createIssues(issueUpdates));
+    }
+
+    @Override
+    public JsonNode getIssue(String issueKey, String expand) {
+        return upstream(() -> delegate.getIssue(issueKey, expand));
+    }
+
+    @Override
+    public void updateIssue(String issueKey, Map<String, Object> body) {
+        upstream(() -> delegate.updateIssue(issueKey, body));
+    }
+
+    @Override
+    public void setVote(String issueKey, boolean up) {
+        upstream(() -> delegate.setVote(issueKey, up));
+    }
+
+    @Override
+    public void addWatcher(String issueKey, String accountIdOrName) {
+        upstream(() -> delegate.addWatcher(issueKey, accountIdOrName));
+    }
+
+    @Override
+    public SearchResponse search(String jql, int startAt, int maxResults, List<String> fields) {
+        return upstream(() -> delegate.search(jql, startAt, maxResults, fields));
+    }
+
+    @Override
+    public void assignIssue(String key, AssigneeDtos.AssigneeReq payload) {
+        upstream(() -> delegate.assignIssue(key, payload));
+    }
+
+    @Override
+    public List<JiraModels.AssignableUser> findAssignableUsers(String issueKey, String projectKey, String query, int startAt, int maxResults) {
+        return upstream(() -> delegate.findAssignableUsers(issueKey, projectKey, query, startAt, maxResults));
+    }
+
+    @Override
+    public JiraModels.Attachment attachAndReturnMeta(String issueKey, MultipartFile file) {
+        return upstream(() -> delegate.attachAndReturnMeta(issueKey, file));
+    }
+
+    @Override
+    public JiraModels.Attachment getAttachment(String attachmentId) {
+        return upstream(() -> delegate.getAttachment(attachmentId));
+    }
+
+    @Override
+    public byte[] downloadAttachment(String attachmentId) {
+        return upstream(() -> delegate.downloadAttachment(attachmentId));
+    }
+
+    @Override
+    public byte[] downloadAttachmentThumbnail(String attachmentId) {
+        return upstream(() -> delegate.downloadAttachmentThumbnail(attachmentId));
+    }
+
+    @Override
+    public JsonNode getIssueProperty(String issueKey, String propertyKey) {
+        return upstream(() -> delegate.getIssueProperty(issueKey, propertyKey));
+    }
+
+    @Override
+    public void setIssueProperty(String issueKey, String propertyKey, Object propertyValue) {
+        upstream(() -> delegate.setIssueProperty(issueKey, propertyKey, propertyValue));
+    }
+
+    @Override
+    public void createIssueLink(String linkTypeName, String issueKey, String caseKey) {
+        upstream(() -> delegate.createIssueLink(linkTypeName, issueKey, caseKey));
+    }
+
+    @Override
+    public List<JiraModels.Comment> getComments(String issueKey) {
+        return upstream(() -> delegate.getComments(issueKey));
+    }
+
+    @Override
+    public JiraModels.Comment addComment(String issueKey, String renderedBody) {
+        return upstream(() -> delegate.addComment(issueKey, renderedBody));
+    }
+
+    @Override
+    public JiraModels.Comment updateComment(String issueKey, String commentId, String renderedBody) {
+        return upstream(() -> delegate.updateComment(issueKey, commentId, renderedBody));
+    }
+
+    @Override
+    public void deleteComment(String issueKey, String commentId) {
+        upstream(() -> delegate.deleteComment(issueKey, commentId));
+    }
+
+    @Override
+    public JiraModels.ChangelogPage getIssueChangelog(String issueKey, int startAt, int max) {
+        return upstream(() -> delegate.getIssueChangelog(issueKey, startAt, max));
+    }
+
+    @Override
+    public List<JiraModels.IssueLinkType> getIssueLinkTypes() {
+        return upstream(delegate::getIssueLinkTypes);
+    }
+
+    // ───────────── helpers ─────────────
+
+    private <T> T memo(String key, Supplier<T> loader) {
+        JiraRequestLedger ledger = ledger();
+        if (ledger == null || !props.isEnabled()) {
+            return upstream(loader);
+        }
+
+        T cached = ledger.get(key);
+        if (cached != null) return cached;
+
+        T loaded = upstream(loader);
+        ledger.put(key, loaded);
+        return loaded;
+    }
+
+    private <T> T upstream(Supplier<T> call) {
+        JiraRequestLedger ledger = ledger();
+        if (ledger != null) ledger.countUpstreamCall();
+        return call.get();
+    }
+
+    private void upstream(Runnable call) {
+        upstream(() -> {
+            call.run();
+            return null;
+        });
+    }
+
+    private static JiraRequestLedger ledger() {
+        return JiraRequestLedger.currentOrNull();
+    }
+
+    private static String projectPropertyKey(String projectKey, String propertyKey) {
+        return "pprop|" + projectKey + "|" + propertyKey;
+    }
+}
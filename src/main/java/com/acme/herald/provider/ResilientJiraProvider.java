@@ -0,0 +1,336 @@
+package com.acme.herald.provider;
+
+import com.acme.herald.assignee.dto.AssigneeDtos;
+import com.acme.herald.auth.JiraAuthContext;
+import com.acme.herald.auth.TokenPayload;
+import com.acme.herald.config.JiraResilienceProperties;
+import com.acme.herald.domain.JiraModels;
+import com.acme.herald.domain.JiraModels.IssueRef;
+import com.acme.herald.domain.JiraModels.SearchResponse;
+import com.acme.herald.resilience.Bulkhead;
+import com.acme.herald.resilience.CircuitBreaker;
+import com.acme.herald.web.error.ServiceUnavailableException;
+import feign.FeignException;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+import tools.jackson.databind.JsonNode;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Warstwa resilience nad JiraServerProvider (pod memo):
+ * - timeout per klasa operacji (read / write / attachment) — call idzie na virtual thread,
+ *   po przekroczeniu czasu jest przerywany, a klient dostaje 503 zamiast wisieć,
+ * - bulkhead per klasa — wolne uploady nie zabierają miejsca odczytom,
+ * - circuit breaker per klasa — przy fali 5xx/timeoutów od razu 503 z Retry-After,
+ * - metryki: herald.jira.call{op,outcome}, stany breakerów i odrzucenia bulkheadów.
+ *
+ * 4xx z Jiry (poza 429) nie psują statystyk breakera — Jira odpowiada, tylko odmawia.
+ */
+@Slf4j
+@Component("resilientJiraProvider")
+public class ResilientJiraProvider implements JiraProvider {
+
+    enum OpClass {READ, WRITE, ATTACHMENT, BULK_WRITE}
+
+    private final JiraProvider delegate;
+    private final JiraResilienceProperties props;
+    private final ExecutorService executor;
+    private final MeterRegistry meters;
+    private final Map<OpClass, Guard> guards = new EnumMap<>(OpClass.class);
+
+    public ResilientJiraProvider(
+            @Qualifier("jiraServerProvider") JiraProvider delegate,
+            JiraResilienceProperties props,
+            @Qualifier("fanOutExecutor") ExecutorService executor,
+            MeterRegistry meters
+    ) {
+        this.delegate = delegate;
+        this.props = props;
+        this.executor = executor;
+        this.meters = meters;
+
+        guards.put(OpClass.READ, guard(OpClass.READ, props.getRead()));
+        guards.put(OpClass.WRITE, guard(OpClass.WRITE, props.getWrite()));
+        guards.put(OpClass.ATTACHMENT, guard(OpClass.ATTACHMENT, props.getAttachment()));
+        guards.put(OpClass.BULK_WRITE, guard(OpClass.BULK_WRITE, props.getBulkWrite()));
+    }
+
+    // ───────────── reads ─────────────
+
+    @Override
+    public JiraModels.UserResponse getMe() {
+        return call(OpClass.READ, delegate::getMe);
+    }
+
+    @Override
+    public JiraModels.PermissionsResponse getMyPermissions(String projectKey, String issueKey, List<String> permissions) {
+        return call(OpClass.READ, () -> delegate.getMyPermissions(projectKey, issueKey, permissions));
+    }
+
+    @Override
+    public List<String> groupPicker(String query, List<String> exclude, int maxResults) {
+        return call(OpClass.READ, () -> delegate.groupPicker(query, exclude, maxResults));
+    }
+
+    @Override
+    public JsonNode getProjectProperty(String projectKey, String propertyKey) {
+        return call(OpClass.READ, () -> delegate.getProjectProperty(projectKey, propertyKey));
+    }
+
+    @Override
+    public JsonNode getIssue(String issueKey, String expand) {
+        return call(OpClass.READ, () -> delegate.getIssue(issueKey, expand));
+    }
+
+    @Override
+    public SearchResponse search(String jql, int startAt, int maxResults, List<String> fields) {
+        return call(OpClass.READ, () -> delegate.search(jql, startAt, maxResults, fields));
+    }
+
+    @Override
+    public List<JiraModels.AssignableUser> findAssignableUsers(String issueKey, String projectKey, String query, int startAt, int maxResults) {
+        return call(OpClass.READ, () -> delegate.findAssignableUsers(issueKey, projectKey, query, startAt, maxResults));
+    }
+
+    @Override
+    public JiraModels.Attachment getAttachment(String attachmentId) {
+        return call(OpClass.READ, () -> delegate.getAttachment(attachmentId));
+    }
+
+    @Override
+    public JsonNode getIssueProperty(String issueKey, String propertyKey) {
+        return call(OpClass.READ, () -> delegate.getIssueProperty(issueKey, propertyKey));
+    }
+
+    @Override
+    public List<JiraModels.Comment> getComments(String issueKey) {
+        return call(OpClass.READ, () -> delegate.getComments(issueKey));
+    }
+
+    @Override
+    public JiraModels.ChangelogPage getIssueChangelog(String issueKey, int startAt, int max) {
+        return call(OpClass.READ, () -> delegate.getIssueChangelog(issueKey, startAt, max));
+    }
+
+    @Override
+    public List<JiraModels.IssueLinkType> getIssueLinkTypes() {
+        return call(OpClass.READ, delegate::getIssueLinkTypes);
+    }
+
+    // ───────────── writes ─────────────
+
+    @Override
+    public TokenPayload createPatByUsernamePdWithMeta(String username, String pd, int days) {
+        return call(OpClass.WRITE, () -> delegate.createPatByUsernamePdWithMeta(username, pd, days));
+    }
+
+    @Override
+    public void revokeCurrentPat() {
+        run(OpClass.WRITE, delegate::revokeCurrentPat);
+    }
+
+    @Override
+    public void setProjectProperty(String projectKey, String propertyKey, Object propertyValue) {
+        run(OpClass.WRITE, () -> delegate.setProjectProperty(projectKey, propertyKey, propertyValue));
+    }
+
+    @Override
+    public IssueRef createIssue(Map<String, Object> body) {
+        return call(OpClass.WRITE, () -> delegate.createIssue(body));
+    }
+
+    @Override
+    public JiraModels.BulkCreateResponse createIssues(List<Map<String, Object>> issueUpdates) {
+        return call(OpClass.BULK_WRITE, () -> delegate.createIssues(issueUpdates));
+    }
+
+    @Override
+    public void updateIssue(String issueKey, Map<String, Object> body) {
+        run(OpClass.WRITE, () -> delegate.updateIssue(issueKey, body));
+    }
+
+    @Override
+    public void setVote(String issueKey, boolean up) {
+        run(OpClass.WRITE, () -> delegate.setVote(issueKey, up));
+    }
+
+    @Override
+    public void addWatcher(String issueKey, String accountIdOrName) {
+        run(OpClass.WRITE, () -> delegate.addWatcher(issueKey, accountIdOrName));
+    }
+
+    @Override
+    public void assignIssue(String key, AssigneeDtos.AssigneeReq payload) {
+        run(OpClass.WRITE, () -> delegate.assignIssue(key, payload));
+    }
+
+    @Override
+    public void setIssueProperty(String issueKey, String propertyKey, Object propertyValue) {
+        run(OpClass.WRITE, () -> delegate.setIssueProperty(issueKey, propertyKey, propertyValue));
+    }
+
+    @Override
+    public void createIssueLink(String linkTypeName, String issueKey, String caseKey) {
+        run(OpClass.WRITE, () -> delegate.createIssueLink(linkTypeName, issueKey, caseKey));
+    }
+
+    @Override
+    public JiraModels.Comment addComment(String issueKey, String renderedBody) {
+        return call(OpClass.WRITE, () -> delegate.addComment(issueKey, renderedBody));
+    }
+
+    @Override
+    public JiraModels.Comment updateComment(String issueKey, String commentId, String renderedBody) {
+        return call(OpClass.WRITE, () -> delegate.updateComment(issueKey, commentId, renderedBody));
+    }
+
+    @Override
+    public void deleteComment(String issueKey, String commentId) {
+        run(OpClass.WRITE, () -> delegate.deleteComment(issueKey, commentId));
+    }
+
+    // ───────────── attachments ─────────────
+
+    @Override
+    public JiraModels.Attachment attachAndReturnMeta(String issueKey, MultipartFile file) {
+        return call(OpClass.ATTACHMENT, () -> delegate.attachAndReturnMeta(issueKey, file));
+    }
+
+    @Override
+    public byte[] downloadAttachment(String attachmentId) {
+        return call(OpClass.ATTACHMENT, () -> delegate.downloadAttachment(attachmentId));
+    }
+
+    @Override
+    public byte[] downloadAttachmentThumbnail(String attachmentId) {
+        return call(OpClass.ATTACHMENT, () -> delegate.downloadAttachmentThumbnail(attachmentId));
+    }
+
+    // ───────────── core ─────────────
+
+    private <T> T call(OpClass op, Supplier<T> body) {
+        if (!props.isEnabled()) return body.get();
+
+        Guard g = guards.get(op);
+        long t0 = System.nanoTime();
+        String outcome = "success";
+        try {
+            g.breaker.acquirePermission();
+        } catch (ServiceUnavailableException e) {
+            record(op, "short_circuited", t0);
+            throw e;
+        }
+
+        try {
+            T result = g.bulkhead.call(() -> withTimeout(g, body));
+            g.breaker.onSuccess();
+            return result;
+        } catch (TimeoutException e) {
+            outcome = "timeout";
+            g.breaker.onFailure();
+            throw new ServiceUnavailableException(
+                    "JIRA_TIMEOUT",
+                    "Jira nie odpowiedziała w %d ms.".formatted(g.timeout.toMillis()),
+                    1
+            );
+        } catch (RuntimeException e) {
+            outcome = classify(e);
+            switch (outcome) {
+                case "failure" -> g.breaker.onFailure();
+                case "client_error" -> g.breaker.onSuccess();
+                default -> g.breaker.onIgnored();
+            }
+            throw e;
+        } catch (Error e) {
+            outcome = "error";
+            g.breaker.onIgnored();
+            throw e;
+        } finally {
+            record(op, outcome, t0);
+        }
+    }
+
+    private void run(OpClass op, Runnable body) {
+        call(op, () -> {
+            body.run();
+            return null;
+        });
+    }
+
+    /** Wykonuje call na virtual thread z limitem czasu; kontekst auth przenosimy jawnie. */
+    private <T> T withTimeout(Guard g, Supplier<T> body) throws TimeoutException {
+        if (g.timeout == null || g.timeout.isZero() || g.timeout.isNegative()) {
+            return body.get();
+        }
+
+        Supplier<T> task = JiraAuthContext.wrap(JiraAuthContext.currentOrNull(), body);
+        Future<T> f = executor.submit(task::get);
+        try {
+            return f.get(g.timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // przerwanie zamyka socket na virtual thread -> połączenie wraca do puli
+            f.cancel(true);
+            throw e;
+        } catch (InterruptedException e) {
+            f.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for Jira.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) throw re;
+            if (cause instanceof Error err) throw err;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * failure      — upstream niezdrowy (5xx, 429, I/O) -> liczy się do breakera,
+     * client_error — Jira odpowiedziała 4xx -> dla breakera to sukces,
+     * rejected     — nasz bulkhead / breaker, call nie poszedł do Jiry,
+     * ignored      — błąd lokalny (np. brak auth, mapowanie) — nic nie mówi o zdrowiu Jiry.
+     */
+    private static String classify(RuntimeException e) {
+        if (e instanceof ServiceUnavailableException) return "rejected";
+        if (e instanceof JiraUpstreamException j) return j.isClientError() ? "client_error" : "failure";
+        if (e instanceof FeignException f) {
+            int s = f.status();
+            return (s >= 400 && s < 500 && s != 429) ? "client_error" : "failure";
+        }
+        if (e instanceof UncheckedIOException) return "failure";
+        return "ignored";
+    }
+
+    private void record(OpClass op, String outcome, long t0) {
+        meters.timer("herald.jira.call", "op", op.name().toLowerCase(Locale.ROOT), "outcome", outcome)
+                .record(System.nanoTime() - t0, TimeUnit.NANOSECONDS);
+    }
+
+    private Guard guard(OpClass op, JiraResilienceProperties.Op cfg) {
+        String name = "jira-" + op.name().toLowerCase(Locale.ROOT);
+        var b = props.getBreaker();
+        return new Guard(
+                cfg.getTimeout(),
+                new Bulkhead(name, cfg.getMaxConcurrent(), cfg.getAcquireTimeout(), meters),
+                new CircuitBreaker(name, b.getWindowSize(), b.getMinCalls(), b.getFailureRateThreshold(),
+                        b.getOpenDuration(), b.getHalfOpenCalls(), meters)
+        );
+    }
+
+    private record Guard(Duration timeout, Bulkhead bulkhead, CircuitBreaker breaker) {
+    }
+}
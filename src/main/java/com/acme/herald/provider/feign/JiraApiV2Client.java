@@ -2,6 +2,7 @@ package com.acme.herald.provider.feign;
 
 import com.acme.herald.domain.JiraModels;
 import com.acme.herald.domain.JiraModels.CreateIssueResponse;
+import feign.Request;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
@@ -65,6 +66,13 @@ public interface JiraApiV2Client {
             @RequestBody Object body
     );
 
+    @PostMapping(value = REST_API_PREFIX + "/issue/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    JiraModels.BulkCreateResponse createIssuesBulk(
+            @RequestHeader("Authorization") String auth,
+            @RequestBody Object body,
+            Request.Options options
+    );
+
     @GetMapping(REST_API_PREFIX + "/issue/{key}")
     JsonNode getIssue(
             @RequestHeader("Authorization") String auth,
@@ -97,7 +105,8 @@ public interface JiraApiV2Client {
             @RequestHeader("Authorization") String auth,
             @RequestParam String jql,
             @RequestParam(defaultValue = "0") int startAt,
-            @RequestParam(defaultValue = "50") int maxResults
+            @RequestParam(defaultValue = "50") int maxResults,
+            @RequestParam(required = false) String fields
     );
 
     @PutMapping(value = REST_API_PREFIX + "/issue/{key}/assignee", consumes = MediaType.APPLICATION_JSON_VALUE)
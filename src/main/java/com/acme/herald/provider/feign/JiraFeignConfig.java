@@ -1,7 +1,12 @@
 package com.acme.herald.provider.feign;
 
 
+import com.acme.herald.config.JiraResilienceProperties;
+import com.acme.herald.resilience.Bulkhead;
+import com.acme.herald.resilience.UpstreamBulkheads;
 import feign.Client;
+import feign.Request;
+import feign.Response;
 import feign.hc5.ApacheHttp5Client;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
@@ -14,11 +19,18 @@ import org.apache.hc.core5.ssl.SSLContexts;
 import org.springframework.context.annotation.Bean;
 
 import javax.net.ssl.SSLContext;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.time.Duration;
+import java.util.stream.Stream;
 
 public class JiraFeignConfig {
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(5);
 
     @Bean
-    CloseableHttpClient jiraCloseableHttpClient() throws Exception {
+    CloseableHttpClient jiraCloseableHttpClient(UpstreamBulkheads bulkheads) throws Exception {
         SSLContext sslContext = SSLContexts.custom()
                 .loadTrustMaterial(null, TrustAllStrategy.INSTANCE)
                 .build();
@@ -29,8 +41,14 @@ public class JiraFeignConfig {
                 NoopHostnameVerifier.INSTANCE
         );
 
+        // domyślnie HC5 trzyma 5 połączeń per route — przy virtual threads to byłby ukryty limit;
+        // pula = limit bulkheadu Jiry
+        int maxConn = Math.max(5, bulkheads.jiraMaxConcurrent());
+
         var cm = PoolingHttpClientConnectionManagerBuilder.create()
                 .setTlsSocketStrategy(tlsStrategy)
+                .setMaxConnPerRoute(maxConn)
+                .setMaxConnTotal(maxConn)
                 .build();
 
         return HttpClients.custom()
@@ -38,8 +56,80 @@ public class JiraFeignConfig {
                 .build();
     }
 
+    /**
+     * Twarde limity na poziomie socketu — asekuracja pod timeoutami z ResilientJiraProvider
+     * (read timeout = najdłuższy z timeoutów read/write/attachment). Bulk create ma własny,
+     * dłuższy limit przekazywany per wywołanie (options(...) jako argument metody klienta).
+     */
+    @Bean
+    Request.Options jiraRequestOptions(JiraResilienceProperties resilience) {
+        Duration read = Stream.of(resilience.getRead(), resilience.getWrite(), resilience.getAttachment())
+                .map(JiraResilienceProperties.Op::getTimeout)
+                .filter(d -> d != null && d.isPositive())
+                .max(Duration::compareTo)
+                .orElse(Duration.ofSeconds(60));
+
+        return options(read);
+    }
+
+    /** Options z tym samym connect timeoutem co domyślne — dla metod z własnym read timeoutem. */
+    public static Request.Options options(Duration readTimeout) {
+        return new Request.Options(CONNECT_TIMEOUT, readTimeout, true);
+    }
+
     @Bean
-    Client feignClient(CloseableHttpClient jiraCloseableHttpClient) {
-        return new ApacheHttp5Client(jiraCloseableHttpClient);
+    Client feignClient(CloseableHttpClient jiraCloseableHttpClient, UpstreamBulkheads bulkheads) {
+        Client http = new ApacheHttp5Client(jiraCloseableHttpClient);
+        Bulkhead jira = bulkheads.jira();
+        if (jira == null) return http;
+
+        // permit do zamknięcia body (Feign zamyka je po dekodowaniu) — nie tylko do nagłówków;
+        // inaczej nadmiarowi wywołujący czekaliby w ukrytej kolejce puli HC5
+        return (request, options) -> {
+            Bulkhead.Lease lease = jira.lease();
+            try {
+                Response response = http.execute(request, options);
+                if (response.body() == null) {
+                    lease.close();
+                    return response;
+                }
+                return response.toBuilder().body(new LeasedBody(response.body(), lease)).build();
+            } catch (IOException | RuntimeException e) {
+                lease.close();
+                throw e;
+            }
+        };
+    }
+
+    /** Body odpowiedzi, którego close() zwalnia też permit bulkheadu Jiry. */
+    private record LeasedBody(Response.Body delegate, Bulkhead.Lease lease) implements Response.Body {
+        @Override
+        public Integer length() {
+            return delegate.length();
+        }
+
+        @Override
+        public boolean isRepeatable() {
+            return delegate.isRepeatable();
+        }
+
+        @Override
+        public InputStream asInputStream() throws IOException {
+            return delegate.asInputStream();
+        }
+
+        @Override
+        public Reader asReader(Charset charset) throws IOException {
+            return delegate.asReader(charset);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                delegate.close();
+            } finally {
+                lease.close();
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,16 +1,19 @@
 package com.acme.herald.provider.server;
 
 import com.acme.herald.assignee.dto.AssigneeDtos;
+import com.acme.herald.auth.JiraAuthContext;
 import com.acme.herald.auth.JiraAuthorization;
-import com.acme.herald.auth.StatelessAuthFilter;
 import com.acme.herald.auth.TokenPayload;
+import com.acme.herald.config.JiraResilienceProperties;
 import com.acme.herald.domain.JiraModels;
 import com.acme.herald.domain.JiraModels.IssueRef;
 import com.acme.herald.domain.JiraModels.SearchResponse;
 import com.acme.herald.provider.JiraProvider;
+import com.acme.herald.provider.JiraUpstreamException;
 import com.acme.herald.provider.feign.JiraApiV2Client;
+import com.acme.herald.provider.feign.JiraFeignConfig;
+import com.acme.herald.resilience.UpstreamBulkheads;
 import feign.FeignException;
-import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -33,9 +36,10 @@ import java.util.*;
 class JiraServerProvider implements JiraProvider {
     private static final JsonNodeFactory NF = JsonNodeFactory.instance;
     private final JiraApiV2Client api;
-    private final HttpServletRequest req;
     private final RestClient rest = RestClient.builder().build();
     private final JsonMapper jsonMapper;
+    private final UpstreamBulkheads bulkheads;
+    private final JiraResilienceProperties resilience;
 
     @Override
     public TokenPayload createPatByUsernamePdWithMeta(String username, String pd, int days) {
@@ -114,9 +118,11 @@ class JiraServerProvider implements JiraProvider {
             return unwrapPropertyValue(raw);
         } catch (FeignException.NotFound e) {
             return emptyObj();
-        } catch (RuntimeException e) {
-            log.warn("Exception during fetching IssueProperty: {}, returning empty object. {}",
-                    propertyKey, e.getMessage());
+        } catch (JiraUpstreamException e) {
+            // brak / brak dostępu -> pusty obiekt; 5xx, 429 i timeouty idą wyżej (resilience, 503)
+            if (!e.isClientError()) throw e;
+            log.warn("Jira {} while fetching IssueProperty: {}, returning empty object.",
+                    e.status(), propertyKey);
             return emptyObj();
         }
     }
@@ -129,9 +135,11 @@ class JiraServerProvider implements JiraProvider {
             return unwrapPropertyValue(raw);
         } catch (FeignException.NotFound e) {
             return emptyObj();
-        } catch (RuntimeException e) {
-            log.warn("Exception during fetching ProjectProperty: {}, returning empty object. {}",
-                    propertyKey, e.getMessage());
+        } catch (JiraUpstreamException e) {
+            // brak / brak dostępu -> pusty obiekt; 5xx, 429 i timeouty idą wyżej (resilience, 503)
+            if (!e.isClientError()) throw e;
+            log.warn("Jira {} while fetching ProjectProperty: {}, returning empty object.",
+                    e.status(), propertyKey);
             return emptyObj();
         }
     }
@@ -149,6 +157,14 @@ class JiraServerProvider implements JiraProvider {
         return new IssueRef(resp.id(), resp.key(), 1);
     }
 
+    @Override
+    public JiraModels.BulkCreateResponse createIssues(List<Map<String, Object>> issueUpdates) {
+        var tp = currentAuth();
+        // jedyne wywołanie z długim read timeoutem (bulkWrite) — reszta klienta zostaje przy domyślnym
+        return api.createIssuesBulk(auth(tp), Map.of("issueUpdates", issueUpdates),
+                JiraFeignConfig.options(resilience.getBulkWrite().getTimeout()));
+    }
+
     @Override
     public JsonNode getIssue(String issueKey, String expand) {
         var tp = currentAuth();
@@ -157,9 +173,11 @@ class JiraServerProvider implements JiraProvider {
             return unwrapPropertyValue(raw);
         } catch (FeignException.NotFound e) {
             return emptyObj();
-        } catch (RuntimeException e) {
-            log.warn("Exception during fetching Issue: {}, returning empty object. {}",
-                    issueKey, e.getMessage());
+        } catch (JiraUpstreamException e) {
+            // brak / brak dostępu -> pusty obiekt; 5xx, 429 i timeouty idą wyżej (resilience, 503)
+            if (!e.isClientError()) throw e;
+            log.warn("Jira {} while fetching Issue: {}, returning empty object.",
+                    e.status(), issueKey);
             return emptyObj();
         }
     }
@@ -185,10 +203,11 @@ class JiraServerProvider implements JiraProvider {
     }
 
     @Override
-    public SearchResponse search(String jql, int startAt, int maxResults) {
+    public SearchResponse search(String jql, int startAt, int maxResults, List<String> fields) {
         var tp = currentAuth();
 
-        JsonNode m = api.search(auth(tp), jql, startAt, maxResults);
+        String projection = (fields == null || fields.isEmpty()) ? null : String.join(",", fields);
+        JsonNode m = api.search(auth(tp), jql, startAt, maxResults, projection);
 
         int start = m.path("startAt").asInt(0);
         int max = m.path("maxResults").asInt(0);
@@ -235,11 +254,11 @@ class JiraServerProvider implements JiraProvider {
         var tp = currentAuth();
         var meta = api.getAttachment(auth(tp), attachmentId);
 
-        return rest.get()
+        return UpstreamBulkheads.call(bulkheads.jira(), () -> rest.get()
                 .uri(meta.content())
                 .header(HttpHeaders.AUTHORIZATION, auth(tp))
                 .retrieve()
-                .body(byte[].class);
+                .body(byte[].class));
     }
 
     @Override
@@ -248,11 +267,11 @@ class JiraServerProvider implements JiraProvider {
         var meta = api.getAttachment(auth(tp), attachmentId);
         var thumbUrl = meta.thumbnail() != null ? meta.thumbnail() : meta.content();
 
-        return rest.get()
+        return UpstreamBulkheads.call(bulkheads.jira(), () -> rest.get()
                 .uri(thumbUrl)
                 .header(HttpHeaders.AUTHORIZATION, auth(tp))
                 .retrieve()
-                .body(byte[].class);
+                .body(byte[].class));
     }
 
     @Override
@@ -307,9 +326,10 @@ class JiraServerProvider implements JiraProvider {
             JsonNode changelog = issue.path("changelog");
             JsonNode names = issue.path("names");
             return toChangelogPage(changelog, names, startAt, maxResults);
-        } catch (RuntimeException e) {
-            log.warn("Exception during fetching Changelog: {}, returning empty page. {}",
-                    issueKey, safeMsg(e));
+        } catch (JiraUpstreamException e) {
+            if (!e.isClientError()) throw e;
+            log.warn("Jira {} while fetching Changelog: {}, returning empty page. {}",
+                    e.status(), issueKey, safeMsg(e));
             return emptyChangelogPage(startAt, maxResults);
         }
     }
@@ -360,9 +380,10 @@ class JiraServerProvider implements JiraProvider {
     }
 
     private TokenPayload currentAuth() {
-        Object o = req.getAttribute(StatelessAuthFilter.ATTR_CURRENT_AUTH);
-        if (!(o instanceof TokenPayload tp) || tp.token() == null || tp.token().isBlank()) {
-            throw new IllegalStateException("Missing herald.currentAuth in request (TokenPayload).");
+        // kontekst wiązany przez StatelessAuthFilter albo jawnie (callAs / withAuth)
+        TokenPayload tp = JiraAuthContext.currentOrNull();
+        if (tp == null || tp.token() == null || tp.token().isBlank()) {
+            throw new IllegalStateException("Missing auth context (TokenPayload) for Jira call.");
         }
         return tp;
     }
@@ -54,8 +54,9 @@ public class RatingService {
     // ───────── helpers ─────────
 
     private RatingIssueProperty readProperty(String issueKey, String ratingId) {
+        // błąd Jiry (5xx/timeout) leci wyżej — pusty stan nadpisałby oceny przy zapisie
+        JsonNode val = jira.getIssueProperty(issueKey, propertyKey(ratingId)); // <-- już "value"
         try {
-            JsonNode val = jira.getIssueProperty(issueKey, propertyKey(ratingId)); // <-- już "value"
             if (val != null && val.isObject() && val.size() > 0) {
                 RatingIssueProperty p = jsonMapper.treeToValue(val, RatingIssueProperty.class);
                 // safety: jeśli ktoś zapisał null/blank ratingId w property
@@ -0,0 +1,92 @@
+package com.acme.herald.resilience;
+
+import com.acme.herald.web.error.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Semaforowy bulkhead: max N równoległych calli do jednego upstreamu.
+ * Przy virtual threads to jedyne, co chroni upstream przed zalaniem — wątków nie brakuje.
+ * Brak permitu po acquireTimeout -> ServiceUnavailableException (503 + Retry-After).
+ */
+public final class Bulkhead {
+    private final String name;
+    private final int maxConcurrent;
+    private final Duration acquireTimeout;
+    private final Semaphore permits;
+    private final Counter rejected;
+
+    public Bulkhead(String name, int maxConcurrent, Duration acquireTimeout, MeterRegistry meters) {
+        this.name = name;
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.acquireTimeout = acquireTimeout != null ? acquireTimeout : Duration.ZERO;
+        this.permits = new Semaphore(this.maxConcurrent, true);
+
+        this.rejected = meters.counter("herald.upstream.bulkhead.rejected", "upstream", name);
+        meters.gauge("herald.upstream.bulkhead.in_flight", Tags.of("upstream", name),
+                this, b -> b.maxConcurrent - b.permits.availablePermits());
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public int inFlight() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    public <T, E extends Exception> T call(Call<T, E> body) throws E {
+        acquire();
+        try {
+            return body.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    /** Permit trzymany poza call() — np. strumień SSE do zamknięcia odpowiedzi. close() zwalnia raz. */
+    public Lease lease() {
+        acquire();
+        AtomicBoolean released = new AtomicBoolean();
+        return () -> {
+            if (released.compareAndSet(false, true)) permits.release();
+        };
+    }
+
+    private void acquire() {
+        boolean ok;
+        try {
+            ok = permits.tryAcquire(acquireTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            ok = false;
+        }
+        if (!ok) {
+            rejected.increment();
+            throw new ServiceUnavailableException(
+                    "UPSTREAM_BUSY",
+                    "Upstream '%s' osiągnął limit równoległych wywołań (%d).".formatted(name, maxConcurrent),
+                    1
+            );
+        }
+    }
+
+    @FunctionalInterface
+    public interface Lease extends AutoCloseable {
+        Lease NOOP = () -> {};
+
+        @Override
+        void close();
+    }
+
+    @FunctionalInterface
+    public interface Call<T, E extends Exception> {
+        T get() throws E;
+    }
+}
@@ -0,0 +1,156 @@
+package com.acme.herald.resilience;
+
+import com.acme.herald.web.error.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+
+/**
+ * Prosty circuit breaker z oknem ostatnich N wyników.
+ *
+ * CLOSED    -> przepuszcza, liczy porażki; przy failure rate >= progu (i min. liczbie calli) -> OPEN
+ * OPEN      -> od razu 503 (bez czekania na upstream) aż minie openDuration -> HALF_OPEN
+ * HALF_OPEN -> kilka próbnych calli; wszystkie OK -> CLOSED, jakakolwiek porażka -> OPEN
+ *
+ * Wywołujący: acquirePermission() przed callem, potem dokładnie jedno z onSuccess/onFailure/onIgnored.
+ */
+@Slf4j
+public final class CircuitBreaker {
+
+    public enum State {CLOSED, OPEN, HALF_OPEN}
+
+    private final String name;
+    private final int minCalls;
+    private final int failureRateThreshold;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final LongSupplier clock;
+
+    // okno wyników (ring buffer): true = porażka
+    private final boolean[] window;
+    private int windowPos;
+    private int windowCount;
+    private int windowFailures;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int halfOpenInFlight;
+    private int halfOpenSuccesses;
+
+    private final Counter rejected;
+    private final MeterRegistry meters;
+
+    public CircuitBreaker(String name, int windowSize, int minCalls, int failureRateThreshold,
+                          Duration openDuration, int halfOpenCalls, MeterRegistry meters) {
+        this(name, windowSize, minCalls, failureRateThreshold, openDuration, halfOpenCalls, meters, System::nanoTime);
+    }
+
+    /** Z podanym zegarem (nanosekundy) — testy. */
+    CircuitBreaker(String name, int windowSize, int minCalls, int failureRateThreshold,
+                   Duration openDuration, int halfOpenCalls, MeterRegistry meters, LongSupplier clock) {
+        this.name = name;
+        this.window = new boolean[Math.max(1, windowSize)];
+        this.minCalls = Math.max(1, Math.min(minCalls, window.length));
+        this.failureRateThreshold = Math.max(1, Math.min(failureRateThreshold, 100));
+        this.openNanos = (openDuration != null ? openDuration : Duration.ofSeconds(30)).toNanos();
+        this.halfOpenCalls = Math.max(1, halfOpenCalls);
+        this.meters = meters;
+        this.clock = clock;
+
+        this.rejected = meters.counter("herald.upstream.circuit.rejected", "upstream", name);
+        meters.gauge("herald.upstream.circuit.state", Tags.of("upstream", name),
+                this, cb -> cb.state().ordinal());
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    /** Rzuca ServiceUnavailableException, gdy breaker jest otwarty (albo half-open bez wolnych prób). */
+    public synchronized void acquirePermission() {
+        if (state == State.OPEN) {
+            long elapsed = clock.getAsLong() - openedAt;
+            if (elapsed < openNanos) {
+                reject(Math.max(1, Duration.ofNanos(openNanos - elapsed).toSeconds()));
+            }
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenInFlight >= halfOpenCalls) reject(1);
+            halfOpenInFlight++;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            halfOpenInFlight = Math.max(0, halfOpenInFlight - 1);
+            if (++halfOpenSuccesses >= halfOpenCalls) transition(State.CLOSED);
+            return;
+        }
+        record(false);
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            transition(State.OPEN);
+            return;
+        }
+        record(true);
+        if (state == State.CLOSED && windowCount >= minCalls
+                && windowFailures * 100 >= failureRateThreshold * windowCount) {
+            transition(State.OPEN);
+        }
+    }
+
+    /** Call się nie odbył albo wynik nic nie mówi o zdrowiu upstreamu — tylko zwolnij próbę. */
+    public synchronized void onIgnored() {
+        if (state == State.HALF_OPEN) halfOpenInFlight = Math.max(0, halfOpenInFlight - 1);
+    }
+
+    private void record(boolean failure) {
+        if (windowCount == window.length) {
+            if (window[windowPos]) windowFailures--;
+        } else {
+            windowCount++;
+        }
+        window[windowPos] = failure;
+        if (failure) windowFailures++;
+        windowPos = (windowPos + 1) % window.length;
+    }
+
+    private void transition(State to) {
+        if (state == to) return;
+        log.warn("Circuit '{}': {} -> {} (failures {}/{})", name, state, to, windowFailures, windowCount);
+        state = to;
+        halfOpenInFlight = 0;
+        halfOpenSuccesses = 0;
+        if (to == State.OPEN) {
+            openedAt = clock.getAsLong();
+        }
+        if (to == State.CLOSED) {
+            Arrays.fill(window, false);
+            windowPos = 0;
+            windowCount = 0;
+            windowFailures = 0;
+        }
+        meters.counter("herald.upstream.circuit.transitions", "upstream", name, "to", to.name().toLowerCase()).increment();
+    }
+
+    private void reject(long retryAfterSeconds) {
+        rejected.increment();
+        throw new ServiceUnavailableException(
+                "UPSTREAM_CIRCUIT_OPEN",
+                "Upstream '%s' jest chwilowo niedostępny (circuit breaker otwarty).".formatted(name),
+                retryAfterSeconds
+        );
+    }
+}
@@ -0,0 +1,57 @@
+package com.acme.herald.resilience;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket z leniwym uzupełnianiem (bez wątku w tle): capacity tokenów,
+ * refillPerMinute tokenów na minutę, liczone z zegara (System.nanoTime()) przy każdym take.
+ */
+public final class TokenBucket {
+    private final double capacity;
+    private final double tokensPerNano;
+    private final LongSupplier clock;
+    private double tokens;
+    private long lastRefill;
+
+    public TokenBucket(int capacity, int refillPerMinute) {
+        this(capacity, refillPerMinute, System::nanoTime);
+    }
+
+    /** Z podanym zegarem (nanosekundy) — testy. */
+    TokenBucket(int capacity, int refillPerMinute, LongSupplier clock) {
+        this.capacity = Math.max(1, capacity);
+        this.tokensPerNano = Math.max(1, refillPerMinute) / (double) Duration.ofMinutes(1).toNanos();
+        this.clock = clock;
+        this.tokens = this.capacity;
+        this.lastRefill = clock.getAsLong();
+    }
+
+    /** Czas oczekiwania z tryTake() jako Retry-After: pełne sekundy w górę, minimum 1. */
+    public static long retryAfterSeconds(long waitNanos) {
+        long second = Duration.ofSeconds(1).toNanos();
+        return Math.max(1, (waitNanos + second - 1) / second);
+    }
+
+    /** 0 = token pobrany; inaczej ile nanosekund do następnego tokena. */
+    public synchronized long tryTake() {
+        refill();
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) / tokensPerNano);
+    }
+
+    /** Pełny kubełek = nieużywany; można go bezpiecznie wyrzucić z rejestru. */
+    public synchronized boolean isFull() {
+        refill();
+        return tokens >= capacity;
+    }
+
+    private void refill() {
+        long now = clock.getAsLong();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+    }
+}
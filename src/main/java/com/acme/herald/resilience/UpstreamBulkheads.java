@@ -0,0 +1,54 @@
+package com.acme.herald.resilience;
+
+import com.acme.herald.config.UpstreamBulkheadProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rejestr bulkheadów per upstream: jeden dla Jiry, osobny dla każdego base URL LLM —
+ * wolne LLM-y nie zabierają permitów szybkim odczytom z Jiry.
+ */
+@Component
+public class UpstreamBulkheads {
+    private final UpstreamBulkheadProperties props;
+    private final MeterRegistry meters;
+    private final Bulkhead jira;
+    private final Map<String, Bulkhead> llm = new ConcurrentHashMap<>();
+
+    public UpstreamBulkheads(UpstreamBulkheadProperties props, MeterRegistry meters) {
+        this.props = props;
+        this.meters = meters;
+        var j = props.getJira();
+        this.jira = j.isEnabled() ? new Bulkhead("jira", j.getMaxConcurrent(), j.getAcquireTimeout(), meters) : null;
+    }
+
+    /** Bulkhead Jiry albo null, gdy wyłączony. */
+    public Bulkhead jira() {
+        return jira;
+    }
+
+    /** Bulkhead dla upstreamu LLM (scheme://host:port) albo null, gdy wyłączony. */
+    public Bulkhead llm(URI uri) {
+        var l = props.getLlm();
+        if (!l.isEnabled() || uri == null) return null;
+
+        String key = "llm:" + uri.getScheme() + "://" + uri.getHost() + (uri.getPort() > 0 ? ":" + uri.getPort() : "");
+        return llm.computeIfAbsent(key, k -> new Bulkhead(k, l.getMaxConcurrent(), l.getAcquireTimeout(), meters));
+    }
+
+    public int jiraMaxConcurrent() {
+        return props.getJira().getMaxConcurrent();
+    }
+
+    public static Bulkhead.Lease lease(Bulkhead bulkhead) {
+        return bulkhead != null ? bulkhead.lease() : Bulkhead.Lease.NOOP;
+    }
+
+    public static <T, E extends Exception> T call(Bulkhead bulkhead, Bulkhead.Call<T, E> body) throws E {
+        return bulkhead != null ? bulkhead.call(body) : body.get();
+    }
+}
@@ -0,0 +1,226 @@
+package com.acme.herald.search;
+
+import com.acme.herald.auth.JiraAuthContext;
+import com.acme.herald.config.SearchCacheProperties;
+import com.acme.herald.domain.JiraModels;
+import com.acme.herald.provider.JiraProvider;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Cache wyników /search między requestami.
+ *
+ * Klucz: zakres uprawnień (hash zestawu grup albo wywołujący) + znormalizowany JQL (już z guardem
+ * REJECTED) + startAt/limit + projekcja pól. Galeria odpytuje w kółko te same kilka JQL-i.
+ * JQL z wywołaniem funkcji (currentUser(), membersOf(...), now() ...) zawsze per wywołujący —
+ * wynik zależy od tego, kto pyta, nie tylko od grup.
+ * Zapisy szablonów / case'ów przez proxy czyszczą całość (invalidateAll) — razem z buforem prefetchu.
+ */
+@Component
+public class SearchCache {
+    private static final Set<String> KEYWORDS = Set.of(
+            "and", "or", "not", "order", "by", "asc", "desc", "is", "in", "empty", "null", "was", "changed"
+    );
+    // słowa, po których "(" to lista / grupowanie, a nie wywołanie funkcji
+    private static final Set<String> NON_FUNCTIONS = Set.of("and", "or", "not", "in", "during");
+
+    private final SearchCacheProperties props;
+    private final JiraProvider jira;
+    private final SearchPrefetcher prefetcher;
+
+    private final Map<Key, Entry> cache = new ConcurrentHashMap<>();
+    // caller -> zakres (grupy); bez tego każdy hit kosztowałby getMe
+    private final Map<String, ScopeEntry> scopes = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+
+    SearchCache(SearchCacheProperties props, JiraProvider jira, SearchPrefetcher prefetcher, MeterRegistry meters) {
+        this.props = props;
+        this.jira = jira;
+        this.prefetcher = prefetcher;
+        this.hits = meters.counter("herald.jira.search.cache", "result", "hit");
+        this.misses = meters.counter("herald.jira.search.cache", "result", "miss");
+        meters.gaugeMapSize("herald.jira.search.cache.size", List.of(), cache);
+    }
+
+    JiraModels.SearchResponse get(String guardedJql, int startAt, int limit, List<String> fields,
+                                  Supplier<JiraModels.SearchResponse> loader) {
+        String caller = JiraAuthContext.callerFingerprintOrNull();
+        if (!props.isEnabled() || caller == null) return loader.get();
+
+        String jql = normalizeJql(guardedJql);
+        String scope = hasFunctionCall(jql) ? "c:" + caller : scope(caller);
+        Key key = new Key(scope, jql, startAt, limit,
+                fields == null ? "*" : String.join(",", fields));
+
+        long now = System.nanoTime();
+        Entry e = cache.get(key);
+        if (e != null && e.expiresAtNanos() - now > 0) {
+            hits.increment();
+            return e.value();
+        }
+
+        misses.increment();
+        JiraModels.SearchResponse fresh = loader.get();
+        if (fresh != null) {
+            evictIfFull(now);
+            cache.put(key, new Entry(fresh, now + props.getTtl().toNanos()));
+        }
+        return fresh;
+    }
+
+    /**
+     * Po zapisach przez proxy (create/update template, case, bulk) — dowolny JQL mógł się zmienić.
+     * Strony pobrane w tle przed zapisem też wylatują, inaczej take() oddałby je jeszcze przez ttl.
+     */
+    public void invalidateAll() {
+        cache.clear();
+        prefetcher.invalidateAll();
+    }
+
+    private String scope(String caller) {
+        if (props.getScope() == SearchCacheProperties.Scope.CALLER) return "c:" + caller;
+
+        long now = System.nanoTime();
+        ScopeEntry s = scopes.get(caller);
+        if (s != null && s.expiresAtNanos() - now > 0) return s.scope();
+
+        String scope;
+        var me = jira.getMe();
+        if (me == null || me.groups() == null || me.groups().items() == null) {
+            scope = "c:" + caller; // brak grup w odpowiedzi -> bezpiecznie per wywołujący
+        } else {
+            String groups = me.groups().items().stream()
+                    .map(JiraModels.GroupItem::name)
+                    .filter(Objects::nonNull)
+                    .sorted()
+                    .collect(Collectors.joining("\n"));
+            scope = "g:" + sha256(groups);
+        }
+
+        if (scopes.size() >= props.getMaxEntries()) scopes.values().removeIf(x -> x.expiresAtNanos() - now <= 0);
+        scopes.put(caller, new ScopeEntry(scope, now + props.getTtl().toNanos()));
+        return scope;
+    }
+
+    /**
+     * Białe znaki poza literałami zwinięte do jednej spacji, słowa kluczowe JQL małymi literami.
+     * Literały ("..." / '...') bez zmian — wartości mogą być case-sensitive.
+     */
+    static String normalizeJql(String jql) {
+        if (jql == null) return "";
+        StringBuilder out = new StringBuilder(jql.length());
+        StringBuilder word = new StringBuilder();
+        char quote = 0;
+        boolean space = false;
+
+        for (int i = 0; i < jql.length(); i++) {
+            char c = jql.charAt(i);
+            if (quote != 0) {
+                out.append(c);
+                if (c == '\\' && i + 1 < jql.length()) out.append(jql.charAt(++i));
+                else if (c == quote) quote = 0;
+                continue;
+            }
+            if (Character.isLetter(c)) {
+                if (word.isEmpty() && space) {
+                    separate(out);
+                    space = false;
+                }
+                word.append(c);
+                continue;
+            }
+            flushWord(out, word);
+            if (Character.isWhitespace(c)) {
+                space = true;
+                continue;
+            }
+            if (space) {
+                separate(out);
+                space = false;
+            }
+            out.append(c);
+            if (c == '"' || c == '\'') quote = c;
+        }
+        flushWord(out, word);
+        return out.toString();
+    }
+
+    /** Czy (znormalizowany) JQL poza literałami ma "nazwa(" — np. currentUser(), startOfDay(-1d). */
+    static boolean hasFunctionCall(String jql) {
+        if (jql == null) return false;
+        StringBuilder word = new StringBuilder();
+        String last = null;
+        char quote = 0;
+
+        for (int i = 0; i < jql.length(); i++) {
+            char c = jql.charAt(i);
+            if (quote != 0) {
+                if (c == '\\') i++;
+                else if (c == quote) quote = 0;
+                continue;
+            }
+            if (Character.isLetterOrDigit(c) || c == '_') {
+                word.append(c);
+                continue;
+            }
+            if (!word.isEmpty()) {
+                last = word.toString().toLowerCase(Locale.ROOT);
+                word.setLength(0);
+            }
+            if (Character.isWhitespace(c)) continue;
+            if (c == '(' && last != null && !NON_FUNCTIONS.contains(last)) return true;
+            last = null;
+            if (c == '"' || c == '\'') quote = c;
+        }
+        return false;
+    }
+
+    private static void separate(StringBuilder out) {
+        if (!out.isEmpty()) out.append(' ');
+    }
+
+    private static void flushWord(StringBuilder out, StringBuilder word) {
+        if (word.isEmpty()) return;
+        String w = word.toString();
+        String lower = w.toLowerCase(Locale.ROOT);
+        out.append(KEYWORDS.contains(lower) ? lower : w);
+        word.setLength(0);
+    }
+
+    private void evictIfFull(long now) {
+        if (cache.size() < props.getMaxEntries()) return;
+        cache.values().removeIf(e -> e.expiresAtNanos() - now <= 0);
+        // nadal pełno -> prosty reset, cache i tak krótko żyje
+        if (cache.size() >= props.getMaxEntries()) cache.clear();
+    }
+
+    private static String sha256(String s) {
+        try {
+            byte[] h = MessageDigest.getInstance("SHA-256").digest(s.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(h, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record Key(String scope, String jql, int startAt, int limit, String fields) {}
+
+    private record Entry(JiraModels.SearchResponse value, long expiresAtNanos) {}
+
+    private record ScopeEntry(String scope, long expiresAtNanos) {}
+}
@@ -1,16 +1,21 @@
 package com.acme.herald.search;
 
+import com.acme.herald.domain.dto.CompactSearchResult;
+import com.acme.herald.domain.dto.SearchItem;
 import com.acme.herald.domain.dto.SearchResult;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping(path = "/search", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -28,9 +33,86 @@ public class SearchController {
             @Parameter(description = "Provider query string (syntax depends on Provider).", example = "project = ABC AND text ~ \"onboarding\"")
             @RequestParam(required = false) String q,
 
+            @Parameter(description = "Offset of the first result (use nextStartAt from the previous page).", example = "0")
+            @RequestParam(defaultValue = "0") int startAt,
+
+            @Parameter(description = "Maximum number of results to return.", example = "50")
+            @RequestParam(defaultValue = "50") int limit,
+
+            @Parameter(description = "Field projection: ALL returns every Provider field, SLIM only the fields list views need (no payload / description).", example = "SLIM")
+            @RequestParam(defaultValue = "ALL") SearchProjection projection
+    ) {
+        return ResponseEntity.ok(service.search(q, startAt, limit, projection));
+    }
+
+    @GetMapping("/compact")
+    @Operation(
+            summary = "Search issues (compact items)",
+            description = "Same query semantics as /search, but fetches only the configured list-view fields and returns flat items without the raw fields object."
+    )
+    public ResponseEntity<CompactSearchResult> searchCompact(
+            @Parameter(description = "Provider query string (syntax depends on Provider).", example = "project = ABC AND text ~ \"onboarding\"")
+            @RequestParam(required = false) String q,
+
+            @Parameter(description = "Offset of the first result (use nextStartAt from the previous page).", example = "0")
+            @RequestParam(defaultValue = "0") int startAt,
+
             @Parameter(description = "Maximum number of results to return.", example = "50")
             @RequestParam(defaultValue = "50") int limit
     ) {
-        return ResponseEntity.ok(service.search(q, limit));
+        return ResponseEntity.ok(service.searchCompact(q, startAt, limit));
+    }
+
+    @GetMapping("/typeahead")
+    @Operation(
+            summary = "Typeahead / gallery search (compact items)",
+            description = "Prefix text search over template and case metadata (summary, labels, template id, case id, key). Served from the in-proxy index when enabled; every key is checked against the Provider with the caller's permissions before it is returned. Falls back to a Provider query when the index is disabled or not built yet. Empty q lists the most recently updated items."
+    )
+    public ResponseEntity<CompactSearchResult> typeahead(
+            @Parameter(description = "Text typed by the user; every word is matched as a prefix.", example = "onboa")
+            @RequestParam(required = false) String q,
+
+            @Parameter(description = "Optional Provider issue type name filter.", example = "Task")
+            @RequestParam(required = false) String issueType,
+
+            @Parameter(description = "Optional label filter.", example = "herald")
+            @RequestParam(required = false) String label,
+
+            @Parameter(description = "Maximum number of results to return.", example = "10")
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        return ResponseEntity.ok(service.typeahead(q, issueType, label, limit));
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(
+            summary = "Export all matches as NDJSON",
+            description = "Pages through every match of the query (up to the configured export limit) and streams one JSON item per line as pages arrive. Memory use does not grow with the number of matches."
+    )
+    public ResponseEntity<StreamingResponseBody> export(
+            @Parameter(description = "Provider query string (syntax depends on Provider).", example = "project = ABC AND issuetype = Task")
+            @RequestParam(required = false) String q,
+
+            @Parameter(description = "Field projection (see /search).", example = "SLIM")
+            @RequestParam(defaultValue = "SLIM") SearchProjection projection
+    ) {
+        var writer = service.export(q, projection);
+        StreamingResponseBody body = writer::writeTo;
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"search-export.ndjson\"")
+                .body(body);
+    }
+
+    @GetMapping("/payload/{issueKey}")
+    @Operation(
+            summary = "Get payload fields of a single issue",
+            description = "Fetches only the configured payload fields (template payload / case payload) of one issue, for clients using SLIM or compact search."
+    )
+    public ResponseEntity<SearchItem> payload(
+            @Parameter(description = "Provider issue key.", example = "ABC-123")
+            @PathVariable String issueKey
+    ) {
+        return ResponseEntity.ok(service.payload(issueKey));
     }
 }
@@ -0,0 +1,175 @@
+package com.acme.herald.search;
+
+import com.acme.herald.domain.dto.CompactSearchItem;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * Odwrócony indeks metadanych template / case w pamięci (summary, labels, templateId, caseId, klucz).
+ *
+ * Zasila go SearchIndexer (crawl kontem technicznym), czyta typeahead / galeria. Termy w mapie
+ * posortowanej — wyszukanie po prefiksie to subMap, bez skanowania dokumentów. Wynik indeksu to
+ * tylko kandydaci: uprawnienia sprawdza SearchService w Jirze, zanim klucze trafią do klienta.
+ */
+@Component
+class SearchIndex {
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Comparator<Scored> RANK = Comparator.comparingInt(Scored::exact).reversed()
+            .thenComparing(sc -> nz(sc.item().updated()), Comparator.reverseOrder());
+
+    private volatile Snapshot current = new Snapshot();
+    private volatile boolean ready;
+
+    SearchIndex(MeterRegistry meters) {
+        meters.gauge("herald.jira.search.index.docs", this, SearchIndex::size);
+    }
+
+    /** false do zakończenia pierwszego pełnego przebiegu — wtedy pytamy Jirę. */
+    boolean isReady() {
+        return ready;
+    }
+
+    int size() {
+        return current.docs.size();
+    }
+
+    /** Pusty snapshot do zbudowania pełnym przebiegiem (niewidoczny do replaceAll). */
+    Snapshot newSnapshot() {
+        return new Snapshot();
+    }
+
+    void replaceAll(Snapshot fresh) {
+        current = fresh;
+        ready = true;
+    }
+
+    void upsert(CompactSearchItem doc) {
+        current.upsert(doc);
+    }
+
+    void remove(String issueKey) {
+        current.remove(issueKey);
+    }
+
+    /**
+     * Kandydaci: każdy token zapytania musi pasować (jako prefiks) do jakiegoś termu dokumentu.
+     * Trafienia pełnym słowem wyżej, potem świeższe. Puste zapytanie = najnowsze dokumenty (galeria).
+     * Top-k na kopcu rozmiaru limit — puste albo krótkie zapytanie nie sortuje całego indeksu.
+     */
+    List<CompactSearchItem> query(String text, String issueType, String label, int limit) {
+        if (limit <= 0) return List.of();
+        Snapshot s = current;
+        List<String> terms = tokens(text);
+
+        Set<String> keys = null;
+        for (String t : terms) {
+            Set<String> matched = new HashSet<>();
+            for (Set<String> posting : s.postings.subMap(t, true, t + Character.MAX_VALUE, false).values()) {
+                matched.addAll(posting);
+            }
+            if (keys == null) keys = matched;
+            else keys.retainAll(matched);
+            if (keys.isEmpty()) return List.of();
+        }
+
+        // głowa kopca = najsłabszy z dotychczasowych top-k
+        PriorityQueue<Scored> top = new PriorityQueue<>(RANK.reversed());
+        for (String key : keys != null ? keys : s.docs.keySet()) {
+            Doc d = s.docs.get(key);
+            if (d == null || !matches(d.item(), issueType, label)) continue;
+
+            int exact = 0;
+            for (String t : terms) {
+                if (d.terms().contains(t)) exact++;
+            }
+            Scored sc = new Scored(d.item(), exact);
+            if (top.size() < limit) {
+                top.add(sc);
+            } else if (RANK.compare(sc, top.peek()) < 0) {
+                top.poll();
+                top.add(sc);
+            }
+        }
+
+        return top.stream()
+                .sorted(RANK)
+                .map(Scored::item)
+                .toList();
+    }
+
+    private static boolean matches(CompactSearchItem item, String issueType, String label) {
+        if (issueType != null && !issueType.isBlank() && !issueType.equalsIgnoreCase(item.issueType())) return false;
+        return label == null || label.isBlank() || (item.labels() != null && item.labels().contains(label));
+    }
+
+    static List<String> tokens(String text) {
+        if (text == null || text.isBlank()) return List.of();
+        Set<String> out = new LinkedHashSet<>();
+        for (String t : NON_WORD.split(text.toLowerCase(Locale.ROOT))) {
+            if (!t.isEmpty()) out.add(t);
+        }
+        return List.copyOf(out);
+    }
+
+    private static String nz(String s) {
+        return s == null ? "" : s;
+    }
+
+    private record Doc(CompactSearchItem item, Set<String> terms) {}
+
+    private record Scored(CompactSearchItem item, int exact) {}
+
+    /** Dokumenty + termy. Zapisuje jeden wątek (crawler), czytają requesty. */
+    static final class Snapshot {
+        private final Map<String, Doc> docs = new ConcurrentHashMap<>();
+        private final NavigableMap<String, Set<String>> postings = new ConcurrentSkipListMap<>();
+
+        int size() {
+            return docs.size();
+        }
+
+        synchronized void upsert(CompactSearchItem item) {
+            if (item.issueKey() == null) return;
+            remove(item.issueKey());
+
+            Set<String> terms = new HashSet<>();
+            terms.addAll(tokens(item.issueKey()));
+            terms.addAll(tokens(item.summary()));
+            terms.addAll(tokens(item.templateId()));
+            terms.addAll(tokens(item.caseId()));
+            if (item.labels() != null) {
+                for (String l : item.labels()) terms.addAll(tokens(l));
+            }
+
+            // najpierw termy, potem dokument — czytelnik nie trafi na klucz bez dokumentu na stałe
+            for (String t : terms) {
+                postings.computeIfAbsent(t, k -> ConcurrentHashMap.newKeySet()).add(item.issueKey());
+            }
+            docs.put(item.issueKey(), new Doc(item, Set.copyOf(terms)));
+        }
+
+        synchronized void remove(String issueKey) {
+            Doc old = docs.remove(issueKey);
+            if (old == null) return;
+            for (String t : old.terms()) {
+                Set<String> keys = postings.get(t);
+                if (keys == null) continue;
+                keys.remove(issueKey);
+                if (keys.isEmpty()) postings.remove(t, keys);
+            }
+        }
+    }
+}
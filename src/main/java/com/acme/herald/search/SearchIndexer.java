@@ -0,0 +1,122 @@
+package com.acme.herald.search;
+
+import com.acme.herald.auth.JiraAuthContext;
+import com.acme.herald.auth.TokenPayload;
+import com.acme.herald.config.JiraConfigService;
+import com.acme.herald.config.JiraIntegrationConfigDtos;
+import com.acme.herald.config.SearchIndexProperties;
+import com.acme.herald.domain.JiraModels;
+import com.acme.herald.domain.dto.CompactSearchItem;
+import com.acme.herald.provider.JiraProvider;
+import com.acme.herald.web.Jql;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.JsonNode;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+/**
+ * Crawler indeksu wyszukiwania: pełny przebieg projektu co fullSyncInterval (nowy snapshot
+ * podmieniany w całości — znikają usunięte / przeniesione issue), pomiędzy nimi tylko zmiany
+ * (updated >= ostatni sync). Działa na koncie technicznym (serviceToken), nigdy na tokenach userów.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+class SearchIndexer {
+    private final SearchIndexProperties props;
+    private final SearchIndex index;
+    private final JiraProvider jira;
+    private final JiraConfigService jiraCfg;
+
+    // tylko wątek schedulera
+    private Instant lastSync;
+    private Instant lastFullSync;
+
+    @Scheduled(initialDelayString = "15s", fixedDelayString = "${herald.jira.search-index.sync-interval:1m}")
+    void sync() {
+        if (!props.isEnabled() || isBlank(props.getServiceToken())) return;
+
+        TokenPayload service = new TokenPayload(props.getServiceToken().trim(), null, null);
+        Instant started = Instant.now();
+        boolean full = lastSync == null || lastFullSync == null
+                || started.isAfter(lastFullSync.plus(props.getFullSyncInterval()));
+
+        try {
+            JiraAuthContext.runAs(service, () -> {
+                var cfg = jiraCfg.getForRuntime();
+                if (full) fullSync(cfg);
+                else incrementalSync(cfg, lastSync);
+            });
+            lastSync = started;
+            if (full) lastFullSync = started;
+        } catch (RuntimeException e) {
+            // następny przebieg spróbuje ponownie od tego samego lastSync
+            log.warn("Search index {} sync failed: {}", full ? "full" : "incremental", e.toString());
+        }
+    }
+
+    private void fullSync(JiraIntegrationConfigDtos.JiraIntegrationConfigDto cfg) {
+        SearchIndex.Snapshot fresh = index.newSnapshot();
+        int seen = crawl(cfg, projectScope(cfg), fresh);
+        index.replaceAll(fresh);
+        log.info("Search index rebuilt: {} issues crawled, {} indexed", seen, fresh.size());
+    }
+
+    private void incrementalSync(JiraIntegrationConfigDtos.JiraIntegrationConfigDto cfg, Instant since) {
+        // względna data w JQL ("-15m") — bez zgadywania strefy czasowej konta technicznego
+        long minutes = Duration.between(since, Instant.now()).plus(props.getOverlap()).toMinutes() + 1;
+        Jql.Condition where = Jql.and(projectScope(cfg), Jql.field("updated").gte("-" + minutes + "m"));
+        int seen = crawl(cfg, where, null);
+        if (seen > 0) log.debug("Search index updated: {} changed issues", seen);
+    }
+
+    /** Stronicuje po Jirze; snapshot == null -> zapis do bieżącego indeksu. */
+    private int crawl(JiraIntegrationConfigDtos.JiraIntegrationConfigDto cfg, Jql.Condition where, SearchIndex.Snapshot snapshot) {
+        String jql = new Jql.Query(where.render(), "created ASC").render();
+        List<String> fields = SearchService.slimFields(cfg);
+        int pageSize = Math.max(1, props.getPageSize());
+
+        int startAt = 0;
+        while (true) {
+            JiraModels.SearchResponse page = jira.search(jql, startAt, pageSize, fields);
+            List<JsonNode> issues = page.issues() != null ? page.issues() : List.of();
+
+            for (JsonNode i : issues) {
+                CompactSearchItem item = SearchService.toCompact(i, cfg.fields());
+                if (item.issueKey() == null) continue;
+
+                // REJECTED i tak odpada w guardzie wyszukiwania — nie trzymamy tego w pamięci
+                if (SearchService.isRejected(item)) {
+                    if (snapshot == null) index.remove(item.issueKey());
+                    continue;
+                }
+
+                int size = snapshot != null ? snapshot.size() : index.size();
+                if (size >= props.getMaxDocs()) {
+                    log.warn("Search index full ({} docs), skipping the rest of the crawl", size);
+                    return startAt + issues.size();
+                }
+                if (snapshot != null) snapshot.upsert(item);
+                else index.upsert(item);
+            }
+
+            startAt += issues.size();
+            if (issues.isEmpty() || startAt >= page.total()) return startAt;
+        }
+    }
+
+    private static Jql.Condition projectScope(JiraIntegrationConfigDtos.JiraIntegrationConfigDto cfg) {
+        var types = cfg.issueTypes();
+        return Jql.and(
+                Jql.field("project").eq(cfg.projectKey()),
+                Jql.field("issuetype").in(List.of(types.template(), types.caseIssue()))
+        );
+    }
+}
@@ -0,0 +1,140 @@
+package com.acme.herald.search;
+
+import com.acme.herald.auth.JiraAuthContext;
+import com.acme.herald.auth.TokenPayload;
+import com.acme.herald.config.SearchPrefetchProperties;
+import com.acme.herald.domain.JiraModels;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Spekulatywne pobranie następnej strony /search po obsłużeniu bieżącej.
+ *
+ * Bufor per wywołujący (hash tokena), krótki TTL: strona nie odebrana w ttl jest anulowana.
+ * Gdy klient poprosi o stronę, która jeszcze się pobiera, czekamy na nią zamiast pytać Jirę drugi raz.
+ */
+@Slf4j
+@Component
+class SearchPrefetcher {
+    private final SearchPrefetchProperties props;
+    private final ExecutorService executor;
+
+    private final Map<Key, Entry> buffer = new ConcurrentHashMap<>();
+    private final Counter served;
+    private final Counter wasted;
+
+    SearchPrefetcher(
+            SearchPrefetchProperties props,
+            @Qualifier("fanOutExecutor") ExecutorService executor,
+            MeterRegistry meters
+    ) {
+        this.props = props;
+        this.executor = executor;
+        this.served = meters.counter("herald.jira.search.prefetch", "result", "served");
+        this.wasted = meters.counter("herald.jira.search.prefetch", "result", "wasted");
+        meters.gaugeMapSize("herald.jira.search.prefetch.size", List.of(), buffer);
+    }
+
+    /** Strona z bufora (czeka na trwające pobranie) albo null. */
+    JiraModels.SearchResponse take(String guardedJql, int startAt, int limit, List<String> fields) {
+        String caller = JiraAuthContext.callerFingerprintOrNull();
+        if (!props.isEnabled() || caller == null) return null;
+
+        Entry e = buffer.remove(key(caller, guardedJql, startAt, limit, fields));
+        if (e == null) return null;
+        if (e.expiresAtNanos() - System.nanoTime() <= 0) {
+            discard(e);
+            return null;
+        }
+
+        try {
+            JiraModels.SearchResponse res = e.future().get();
+            served.increment();
+            return res;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException ex) {
+            // błąd spekulacji — zwykła ścieżka zapyta Jirę jeszcze raz
+            log.debug("Search prefetch failed: {}", ex.getCause() != null ? ex.getCause().toString() : ex.toString());
+            return null;
+        }
+    }
+
+    /** Zleca pobranie strony w tle z kontekstem auth bieżącego wywołującego. */
+    void prefetch(boolean servedFirstPage, String guardedJql, int startAt, int limit, List<String> fields,
+                  Supplier<JiraModels.SearchResponse> loader) {
+        TokenPayload auth = JiraAuthContext.currentOrNull();
+        String caller = JiraAuthContext.fingerprint(auth);
+        if (!props.isEnabled() || caller == null) return;
+        if (servedFirstPage && !props.isFromFirstPage()) return;
+
+        long now = System.nanoTime();
+        purgeExpired(now);
+
+        Key key = key(caller, guardedJql, startAt, limit, fields);
+        if (buffer.containsKey(key)) return;
+        if (buffer.size() >= props.getMaxEntries()) return;
+        makeRoom(caller);
+
+        // submit (FutureTask), nie CompletableFuture — cancel(true) przerywa wątek czekający na Jirę
+        Future<JiraModels.SearchResponse> future = executor.submit(() -> JiraAuthContext.callAs(auth, loader));
+        Entry prev = buffer.putIfAbsent(key, new Entry(future, now, now + props.getTtl().toNanos()));
+        if (prev != null) future.cancel(true);
+    }
+
+    /** Po zapisach (przez SearchCache.invalidateAll): anuluje trwające pobrania i czyści bufor. */
+    void invalidateAll() {
+        buffer.entrySet().removeIf(e -> {
+            discard(e.getValue());
+            return true;
+        });
+    }
+
+    /** Najstarsze strony wywołującego ponad maxPerUser wylatują (użytkownik przeskoczył dalej). */
+    private void makeRoom(String caller) {
+        int max = Math.max(1, props.getMaxPerUser());
+        var mine = buffer.entrySet().stream()
+                .filter(e -> e.getKey().caller().equals(caller))
+                .sorted(Comparator.comparingLong(e -> e.getValue().createdAtNanos()))
+                .toList();
+        for (int i = 0; i <= mine.size() - max; i++) {
+            Entry e = buffer.remove(mine.get(i).getKey());
+            if (e != null) discard(e);
+        }
+    }
+
+    private void purgeExpired(long now) {
+        buffer.entrySet().removeIf(e -> {
+            if (e.getValue().expiresAtNanos() - now > 0) return false;
+            discard(e.getValue());
+            return true;
+        });
+    }
+
+    private void discard(Entry e) {
+        e.future().cancel(true);
+        wasted.increment();
+    }
+
+    private static Key key(String caller, String guardedJql, int startAt, int limit, List<String> fields) {
+        return new Key(caller, SearchCache.normalizeJql(guardedJql), startAt, limit,
+                fields == null ? "*" : String.join(",", fields));
+    }
+
+    private record Key(String caller, String jql, int startAt, int limit, String fields) {}
+
+    private record Entry(Future<JiraModels.SearchResponse> future, long createdAtNanos, long expiresAtNanos) {}
+}
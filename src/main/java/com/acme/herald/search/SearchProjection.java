@@ -0,0 +1,11 @@
+package com.acme.herald.search;
+
+/**
+ * Które pola Jiry pobiera /search.
+ * ALL  — wszystkie (dotychczasowe zachowanie),
+ * SLIM — pola z konfiguracji runtime bez payloadu / opisu (payload: /search/payload/{issueKey}).
+ */
+public enum SearchProjection {
+    ALL,
+    SLIM
+}
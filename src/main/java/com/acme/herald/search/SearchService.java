@@ -1,151 +1,451 @@
 package com.acme.herald.search;
 
+import com.acme.herald.auth.JiraAuthContext;
 import com.acme.herald.config.JiraConfigService;
 import com.acme.herald.config.JiraIntegrationConfigDtos;
+import com.acme.herald.config.SearchExportProperties;
+import com.acme.herald.config.SearchIndexProperties;
 import com.acme.herald.domain.JiraModels;
+import com.acme.herald.domain.dto.CompactSearchItem;
+import com.acme.herald.domain.dto.CompactSearchResult;
 import com.acme.herald.domain.dto.SearchItem;
 import com.acme.herald.domain.dto.SearchResult;
 import com.acme.herald.provider.JiraProvider;
-import com.acme.herald.web.JqlUtils;
+import com.acme.herald.provider.JiraUpstreamException;
+import com.acme.herald.web.Jql;
+import com.acme.herald.web.dto.CommonDtos;
+import com.acme.herald.web.error.NotFoundException;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class SearchService {
     private final JiraProvider jira;
     private final JiraConfigService jiraCfg;
+    private final SearchCache cache;
+    private final SearchPrefetcher prefetcher;
+    private final SearchExportProperties exportProps;
+    private final JsonMapper json;
+    private final ExecutorService fanOutExecutor;
+    private final SearchIndex index;
+    private final SearchIndexProperties indexProps;
+
+    // pola statusowe z konfiguracji -> skompilowany guard "nie REJECTED"
+    private final Map<String, Jql.Condition> guardCache = new ConcurrentHashMap<>();
 
     // W polach trzymasz kategorię, więc to jest stałe i stabilne.
     private static final String REJECTED = "REJECTED";
 
+    /** Ten sam warunek co guard JQL (status !~ "REJECTED"), liczony lokalnie. */
+    static boolean isRejected(CompactSearchItem item) {
+        return containsRejected(item.templateStatus()) || containsRejected(item.caseStatus());
+    }
+
+    private static boolean containsRejected(String status) {
+        return status != null && status.toUpperCase(Locale.ROOT).contains(REJECTED);
+    }
+
+    // 400 dla key in (...) z usuniętym issue: "An issue with key 'ABC-1' does not exist for field 'key'."
+    private static final Pattern MISSING_KEY = Pattern.compile("issue with key '([^']+)' does not exist", Pattern.CASE_INSENSITIVE);
+
+    // Pola wbudowane potrzebne widokom listy (reszta z konfiguracji runtime).
+    private static final List<String> BASE_FIELDS = List.of("summary", "status", "issuetype", "labels", "created", "updated");
+
     public SearchResult search(String query, int limit) {
+        return search(query, 0, limit, SearchProjection.ALL);
+    }
+
+    public SearchResult search(String query, int startAt, int limit, SearchProjection projection) {
         var cfg = jiraCfg.getForRuntime();
 
         String guardedQuery = addNotRejectedGuard(query, cfg);
+        List<String> fields = projection == SearchProjection.SLIM ? slimFields(cfg) : null;
+        int start = Math.max(0, startAt);
 
-        JiraModels.SearchResponse resp = jira.search(guardedQuery, 0, limit);
+        JiraModels.SearchResponse resp = page(guardedQuery, start, limit, fields);
 
         List<SearchItem> items = new ArrayList<>();
         var issues = resp.issues();
         if (issues != null) {
             for (var i : issues) {
                 String key = i.path("key").asString(null);
-                var fields = i.path("fields");
-                items.add(new SearchItem(key, fields));
+                items.add(new SearchItem(key, i.path("fields")));
             }
         }
-        return new SearchResult(items);
+        return new SearchResult(items, resp.startAt(), resp.total(), nextStartAt(resp));
+    }
+
+    /** Widok listy: projekcja SLIM zmapowana do płaskiego DTO (bez surowego fields). */
+    public CompactSearchResult searchCompact(String query, int startAt, int limit) {
+        var cfg = jiraCfg.getForRuntime();
+
+        String guardedQuery = addNotRejectedGuard(query, cfg);
+        List<String> fields = slimFields(cfg);
+        int start = Math.max(0, startAt);
+        JiraModels.SearchResponse resp = page(guardedQuery, start, limit, fields);
+
+        List<CompactSearchItem> items = new ArrayList<>();
+        var issues = resp.issues();
+        if (issues != null) {
+            for (var i : issues) {
+                items.add(toCompact(i, cfg != null ? cfg.fields() : null));
+            }
+        }
+        return new CompactSearchResult(items, resp.startAt(), resp.total(), nextStartAt(resp));
     }
 
     /**
-     * Dokleja do dowolnego JQL-a filtr ukrywający REJECTED w polach statusowych.
-     * Wstrzykuje warunek przed ORDER BY (jeśli istnieje).
+     * Typeahead / galeria: kandydaci z lokalnego indeksu, widoczność sprawdzana w Jirze
+     * (key in (...) z guardem, uprawnieniami wywołującego i przez SearchCache). Indeks wyłączony,
+     * jeszcze niezbudowany albo niespójny z Jirą -> zwykłe wyszukiwanie JQL.
      */
-    private String addNotRejectedGuard(String rawQuery, JiraIntegrationConfigDtos.JiraIntegrationConfigDto cfg) {
-        String base = (rawQuery == null) ? "" : rawQuery.trim();
-        String guard = buildNotRejectedGuard(cfg).trim();
-        if (guard.isEmpty()) return base;
+    public CompactSearchResult typeahead(String text, String issueType, String label, int limit) {
+        var cfg = jiraCfg.getForRuntime();
+        int max = Math.max(1, limit);
+        if (!index.isReady()) return typeaheadFromJira(cfg, text, issueType, label, max);
 
-        SplitOrderBy split = splitOrderBy(base);
+        List<CompactSearchItem> candidates = index.query(text, issueType, label, max * Math.max(1, indexProps.getCandidateFactor()));
+        if (candidates.isEmpty()) return new CompactSearchResult(List.of(), 0, 0, null);
 
-        String head = split.head.trim();
-        String orderBy = split.orderBy.trim();
+        Set<String> visible = visibleCandidates(cfg, candidates);
+        if (visible == null) return typeaheadFromJira(cfg, text, issueType, label, max);
 
-        String out;
-        if (head.isEmpty()) {
-            // guard zaczyna się od AND — przy pustym query trzeba to zdjąć
-            out = stripLeadingAnd(guard);
-        } else {
-            out = head + " " + ensureLeadingAnd(guard);
+        List<CompactSearchItem> items = candidates.stream()
+                .filter(i -> visible.contains(i.issueKey()))
+                .limit(max)
+                .toList();
+        return new CompactSearchResult(items, 0, items.size(), null);
+    }
+
+    /**
+     * Klucze kandydatów widoczne dla wywołującego albo null (-> zwykłe wyszukiwanie JQL).
+     * Klucz usunięty w Jirze (albo bez Browse dla wywołującego — Jira nie odróżnia) wywala
+     * key in (...) 400 z nazwą klucza — taki klucz odpada tylko z tego zapytania, a reszta jest
+     * sprawdzana jeszcze raz. Z indeksu wspólnego dla wszystkich usuwa go dopiero pełny sync.
+     */
+    private Set<String> visibleCandidates(JiraIntegrationConfigDtos.JiraIntegrationConfigDto cfg, List<CompactSearchItem> candidates) {
+        try {
+            return visibleKeys(cfg, candidates);
+        } catch (JiraUpstreamException e) {
+            Set<String> missing = missingKeys(e);
+            if (missing.isEmpty()) {
+                log.debug("Index candidates rejected by Jira, falling back to JQL: {}", e.toString());
+                return null;
+            }
+            List<CompactSearchItem> rest = candidates.stream().filter(c -> !missing.contains(c.issueKey())).toList();
+            if (rest.isEmpty()) return Set.of();
+            try {
+                return visibleKeys(cfg, rest);
+            } catch (RuntimeException retry) {
+                log.debug("Index candidates rejected by Jira after dropping {}, falling back to JQL: {}", missing, retry.toString());
+                return null;
+            }
+        } catch (RuntimeException e) {
+            log.debug("Index candidates rejected by Jira, falling back to JQL: {}", e.toString());
+            return null;
+        }
+    }
+
+    private Set<String> visibleKeys(JiraIntegrationConfigDtos.JiraIntegrationConfigDto cfg, List<CompactSearchItem> candidates) {
+        List<String> keys = candidates.stream().map(CompactSearchItem::issueKey).toList();
+        String jql = addNotRejectedGuard(Jql.field("key").in(keys).render(), cfg);
+
+        JiraModels.SearchResponse resp = cache.get(jql, 0, keys.size(), JiraProvider.MINIMAL_FIELDS,
+                () -> jira.search(jql, 0, keys.size(), JiraProvider.MINIMAL_FIELDS));
+
+        Set<String> out = new HashSet<>();
+        if (resp.issues() != null) {
+            for (var i : resp.issues()) out.add(i.path("key").asString(null));
         }
+        return out;
+    }
+
+    private static Set<String> missingKeys(JiraUpstreamException e) {
+        Set<String> out = new HashSet<>();
+        if (e.status() != 400 || e.getMessage() == null) return out;
+        Matcher m = MISSING_KEY.matcher(e.getMessage());
+        while (m.find()) out.add(m.group(1));
+        return out;
+    }
+
+    private CompactSearchResult typeaheadFromJira(JiraIntegrationConfigDtos.JiraIntegrationConfigDto cfg,
+                                                  String text, String issueType, String label, int limit) {
+        List<Jql.Condition> parts = new ArrayList<>();
+        parts.add(Jql.field("project").eq(cfg.projectKey()));
+        if (!nz(text).isBlank()) parts.add(Jql.field("summary").contains(nz(text) + "*"));
+        if (!nz(issueType).isBlank()) parts.add(Jql.field("issuetype").eq(nz(issueType)));
+        if (!nz(label).isBlank()) parts.add(Jql.field("labels").eq(nz(label)));
 
-        if (!orderBy.isEmpty()) out = out + " " + orderBy;
-        return out.trim();
+        String query = new Jql.Query(Jql.and(parts.toArray(Jql.Condition[]::new)).render(), "updated DESC").render();
+        return searchCompact(query, 0, limit);
     }
 
     /**
-     * Buduje fragment:
-     * AND (
-     *    (templateStatus is EMPTY OR templateStatus !~ "REJECTED")
-     *    AND
-     *    (caseStatus is EMPTY OR caseStatus !~ "REJECTED")
-     * )
-     *
-     * Jeśli oba pola są takie same, warunek pojawi się tylko raz.
+     * Strona wyników: bufor prefetchu -> cache -> Jira. Po obsłużeniu zleca w tle pobranie
+     * następnej strony, żeby przewijanie katalogu nie czekało na round-trip do Jiry.
      */
-    private String buildNotRejectedGuard(JiraIntegrationConfigDtos.JiraIntegrationConfigDto cfg) {
-        if (cfg == null || cfg.fields() == null) return "";
+    private JiraModels.SearchResponse page(String guardedQuery, int start, int limit, List<String> fields) {
+        JiraModels.SearchResponse resp = prefetcher.take(guardedQuery, start, limit, fields);
+        if (resp == null) {
+            resp = cache.get(guardedQuery, start, limit, fields,
+                    () -> jira.search(guardedQuery, start, limit, fields));
+        }
 
-        // Zbierz unikalne pola statusowe (caseStatus i templateStatus mogą być takie same)
-        Set<String> jqlFields = new LinkedHashSet<>();
+        Integer next = nextStartAt(resp);
+        if (next != null) {
+            // przez cache: trafienie nie kosztuje Jiry, a pobrana strona zasila cache dla innych
+            prefetcher.prefetch(start == 0, guardedQuery, next, limit, fields,
+                    () -> cache.get(guardedQuery, next, limit, fields,
+                            () -> jira.search(guardedQuery, next, limit, fields)));
+        }
+        return resp;
+    }
 
-        String tplFieldRaw = nz(cfg.fields().templateStatus());
-        String caseFieldRaw = nz(cfg.fields().caseStatus());
+    /** null = ostatnia strona. */
+    private static Integer nextStartAt(JiraModels.SearchResponse resp) {
+        int n = resp.issues() != null ? resp.issues().size() : 0;
+        int next = resp.startAt() + n;
+        return n > 0 && next < resp.total() ? next : null;
+    }
 
-        if (!tplFieldRaw.isBlank()) jqlFields.add(JqlUtils.toJqlField(tplFieldRaw));
-        if (!caseFieldRaw.isBlank()) jqlFields.add(JqlUtils.toJqlField(caseFieldRaw));
+    /** Zapis eksportu do strumienia odpowiedzi — wołany poza wątkiem requestu. */
+    @FunctionalInterface
+    public interface ExportWriter {
+        void writeTo(OutputStream out) throws IOException;
+    }
 
-        if (jqlFields.isEmpty()) return "";
+    /**
+     * Eksport NDJSON (jedna linia = SearchItem) wszystkich trafień, stronicowany po Jirze.
+     * Konfiguracja, guard i auth rozwiązywane tu, na wątku requestu; zapis idzie już bez
+     * kontekstu requestu (jira.withAuth). Kolejna strona pobierana w tle, gdy bieżąca jest
+     * zapisywana — w pamięci najwyżej dwie strony, niezależnie od liczby trafień. Bez cache.
+     * Błąd strony po wysłaniu pierwszych linii kończy strumień linią {"error":{...}} — status 200
+     * już poszedł, więc klient musi rozpoznać niepełny eksport po treści.
+     */
+    public ExportWriter export(String query, SearchProjection projection) {
+        var cfg = jiraCfg.getForRuntime();
+        String guardedQuery = addNotRejectedGuard(query, cfg);
+        List<String> fields = projection == SearchProjection.SLIM ? slimFields(cfg) : null;
+        JiraProvider api = jira.withAuth(JiraAuthContext.current());
 
-        List<String> parts = new ArrayList<>();
-        for (String f : jqlFields) {
-            parts.add("(" + f + " is EMPTY OR " + f + " !~ " + jqlQuote(REJECTED) + ")");
-        }
+        int pageSize = Math.max(1, exportProps.getPageSize());
+        int maxItems = Math.max(0, exportProps.getMaxItems());
+
+        return out -> {
+            Future<JiraModels.SearchResponse> next = fetchPage(api, guardedQuery, 0, pageSize, fields);
+            int startAt = 0;
+            int written = 0;
+            try {
+                while (next != null) {
+                    JiraModels.SearchResponse page;
+                    try {
+                        page = await(next);
+                    } catch (RuntimeException e) {
+                        // nic jeszcze nie wysłane -> zwykła odpowiedź błędu z GlobalExceptionHandler
+                        if (written == 0) throw e;
+                        next = null;
+                        log.warn("Search export failed after {} items: {}", written, e.toString());
+                        writeExportError(out, written);
+                        return;
+                    }
+                    List<JsonNode> issues = page.issues() != null ? page.issues() : List.of();
+
+                    int nextStart = startAt + issues.size();
+                    boolean more = !issues.isEmpty() && nextStart < page.total() && written + issues.size() < maxItems;
+                    next = more ? fetchPage(api, guardedQuery, nextStart, pageSize, fields) : null;
 
-        return "AND (" + String.join(" AND ", parts) + ")";
+                    for (JsonNode i : issues) {
+                        if (written >= maxItems) break;
+                        out.write(json.writeValueAsBytes(new SearchItem(i.path("key").asString(null), i.path("fields"))));
+                        out.write('\n');
+                        written++;
+                    }
+                    out.flush();
+                    startAt = nextStart;
+                }
+            } finally {
+                // klient zerwał połączenie / błąd zapisu — nie pobieramy dalej na próżno
+                if (next != null) next.cancel(true);
+            }
+        };
     }
 
-    private static String nz(String s) {
-        return s == null ? "" : s.trim();
+    /** submit (FutureTask), nie CompletableFuture — cancel(true) przerywa wątek czekający na Jirę. */
+    private Future<JiraModels.SearchResponse> fetchPage(JiraProvider api, String jql, int startAt, int pageSize, List<String> fields) {
+        return fanOutExecutor.submit(() -> api.search(jql, startAt, pageSize, fields));
+    }
+
+    private static JiraModels.SearchResponse await(Future<JiraModels.SearchResponse> f) {
+        try {
+            return f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Eksport przerwany.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException(e.getCause());
+        }
     }
 
-    private static String jqlQuote(String v) {
-        // Jira JQL string literal: "..." (escape backslash and quote)
-        String s = v == null ? "" : v;
-        s = s.replace("\\", "\\\\").replace("\"", "\\\"");
-        return "\"" + s + "\"";
+    private void writeExportError(OutputStream out, int written) throws IOException {
+        var error = new CommonDtos.ApiError(
+                "EXPORT_INCOMPLETE",
+                "Eksport przerwany po %d pozycjach — błąd pobierania kolejnej strony z Jiry.".formatted(written),
+                null,
+                null
+        );
+        out.write(json.writeValueAsBytes(Map.of("error", error)));
+        out.write('\n');
+        out.flush();
     }
 
-    private static String ensureLeadingAnd(String guard) {
-        String g = guard.trim();
-        if (g.isEmpty()) return g;
-        return startsWithIgnoreCase(g, "AND ") ? g : "AND " + g;
+    /** Payload (template / case) jednego issue — dociągany dopiero, gdy UI go potrzebuje. */
+    public SearchItem payload(String issueKey) {
+        var cfg = jiraCfg.getForRuntime();
+        var fieldsCfg = cfg != null ? cfg.fields() : null;
+
+        Set<String> payloadFields = new LinkedHashSet<>();
+        if (fieldsCfg != null) {
+            if (!nz(fieldsCfg.payload()).isBlank()) payloadFields.add(nz(fieldsCfg.payload()));
+            if (!nz(fieldsCfg.casePayload()).isBlank()) payloadFields.add(nz(fieldsCfg.casePayload()));
+        }
+        if (payloadFields.isEmpty()) {
+            throw new IllegalStateException("Brak konfiguracji cfg.fields.payload");
+        }
+
+        String jql = addNotRejectedGuard(Jql.field("key").eq(nz(issueKey)).render(), cfg);
+        JiraModels.SearchResponse resp = jira.search(jql, 0, 1, List.copyOf(payloadFields));
+
+        if (resp.issues() == null || resp.issues().isEmpty()) {
+            throw new NotFoundException("Issue not found: " + nz(issueKey));
+        }
+        var issue = resp.issues().getFirst();
+        return new SearchItem(issue.path("key").asString(null), issue.path("fields"));
+    }
+
+    /** BASE_FIELDS + pola Herald z konfiguracji, bez payload / casePayload / description. */
+    static List<String> slimFields(JiraIntegrationConfigDtos.JiraIntegrationConfigDto cfg) {
+        Set<String> out = new LinkedHashSet<>(BASE_FIELDS);
+        var f = cfg != null ? cfg.fields() : null;
+        if (f != null) {
+            for (String id : new String[]{f.templateId(), f.caseId(), f.templateStatus(), f.caseStatus(), f.ratingAvg(), f.epicLink()}) {
+                if (!nz(id).isBlank()) out.add(nz(id));
+            }
+        }
+        return List.copyOf(out);
     }
 
-    private static String stripLeadingAnd(String guard) {
-        String g = guard.trim();
-        if (startsWithIgnoreCase(g, "AND ")) return g.substring(3).trim();
-        return g;
+    static CompactSearchItem toCompact(JsonNode issue, JiraIntegrationConfigDtos.JiraFieldsConfigDto f) {
+        JsonNode fields = issue.path("fields");
+
+        List<String> labels = new ArrayList<>();
+        for (JsonNode l : fields.path("labels")) {
+            String v = l.asString(null);
+            if (v != null) labels.add(v);
+        }
+
+        return new CompactSearchItem(
+                issue.path("key").asString(null),
+                fields.path("summary").asString(null),
+                text(fields.path("status")),
+                text(fields.path("issuetype")),
+                labels,
+                f != null ? text(field(fields, f.templateId())) : null,
+                f != null ? text(field(fields, f.caseId())) : null,
+                f != null ? text(field(fields, f.templateStatus())) : null,
+                f != null ? text(field(fields, f.caseStatus())) : null,
+                f != null ? number(field(fields, f.ratingAvg())) : null,
+                fields.path("updated").asString(null)
+        );
     }
 
-    private static boolean startsWithIgnoreCase(String s, String prefix) {
-        if (s.length() < prefix.length()) return false;
-        return s.regionMatches(true, 0, prefix, 0, prefix.length());
+    private static JsonNode field(JsonNode fields, String id) {
+        return nz(id).isBlank() ? null : fields.get(nz(id));
     }
 
-    private static SplitOrderBy splitOrderBy(String q) {
-        if (q == null) return new SplitOrderBy("", "");
-        int idx = indexOfIgnoreCase(q, " order by ");
-        if (idx < 0) return new SplitOrderBy(q, "");
-        return new SplitOrderBy(q.substring(0, idx), q.substring(idx).trim());
+    /** Tekst, opcja selecta ({value}) albo obiekt z name (status, issuetype). */
+    private static String text(JsonNode n) {
+        if (n == null || n.isNull() || n.isMissingNode()) return null;
+        if (n.isObject()) {
+            if (n.hasNonNull("value")) return n.get("value").asString(null);
+            if (n.hasNonNull("name")) return n.get("name").asString(null);
+            return null;
+        }
+        return n.asString(null);
     }
 
-    private static int indexOfIgnoreCase(String s, String needle) {
-        if (s == null || needle == null) return -1;
-        final int n = s.length();
-        final int m = needle.length();
-        if (m == 0) return 0;
-        for (int i = 0; i <= n - m; i++) {
-            if (s.regionMatches(true, i, needle, 0, m)) return i;
+    private static Double number(JsonNode n) {
+        if (n == null || n.isNull() || n.isMissingNode()) return null;
+        if (n.isNumber()) return n.doubleValue();
+        try {
+            return Double.parseDouble(n.asString("").trim());
+        } catch (NumberFormatException e) {
+            return null;
         }
-        return -1;
     }
 
-    private record SplitOrderBy(String head, String orderBy) {}
+    /**
+     * Dokleja do dowolnego JQL-a filtr ukrywający REJECTED w polach statusowych.
+     * Zapytanie parsowane raz (ORDER BY poza literałami), guard doklejany jako (query) AND guard.
+     */
+    private String addNotRejectedGuard(String rawQuery, JiraIntegrationConfigDtos.JiraIntegrationConfigDto cfg) {
+        return Jql.parse(rawQuery).and(notRejectedGuard(cfg)).render();
+    }
+
+    /**
+     * Skompilowany guard:
+     *    (templateStatus is EMPTY OR templateStatus !~ "REJECTED")
+     *    AND
+     *    (caseStatus is EMPTY OR caseStatus !~ "REJECTED")
+     *
+     * Jeśli oba pola są takie same, warunek pojawi się tylko raz. Cache per para pól
+     * z konfiguracji — zmiana konfiguracji daje nowy klucz, stare wpisy są pomijalne (kilka sztuk).
+     */
+    private Jql.Condition notRejectedGuard(JiraIntegrationConfigDtos.JiraIntegrationConfigDto cfg) {
+        if (cfg == null || cfg.fields() == null) return null;
+
+        String tplField = nz(cfg.fields().templateStatus());
+        String caseField = nz(cfg.fields().caseStatus());
+        if (tplField.isBlank() && caseField.isBlank()) return null;
+
+        return guardCache.computeIfAbsent(tplField + "|" + caseField, k -> {
+            // Zbierz unikalne pola statusowe (caseStatus i templateStatus mogą być takie same)
+            Set<String> statusFields = new LinkedHashSet<>();
+            if (!tplField.isBlank()) statusFields.add(tplField);
+            if (!caseField.isBlank()) statusFields.add(caseField);
+
+            List<Jql.Condition> parts = new ArrayList<>();
+            for (String f : statusFields) {
+                var field = Jql.field(f);
+                parts.add(Jql.or(field.isEmpty(), field.notContains(REJECTED)));
+            }
+            return Jql.compile(Jql.and(parts.toArray(Jql.Condition[]::new)));
+        });
+    }
+
+    private static String nz(String s) {
+        return s == null ? "" : s.trim();
+    }
 }
@@ -1,5 +1,6 @@
 package com.acme.herald.smartcase;
 
+import com.acme.herald.domain.dto.BulkUpsertDtos;
 import com.acme.herald.domain.dto.CaseHistoryDtos;
 import com.acme.herald.domain.dto.CaseRef;
 import com.acme.herald.domain.dto.UpsertCase;
@@ -29,6 +30,15 @@ public class CaseController {
         return ResponseEntity.ok(service.upsertCase(req));
     }
 
+    @PutMapping(path = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+            summary = "Create or update many Smart Cases",
+            description = "Bulk upsert for imports and migrations. Existing issues are resolved with batched queries, new ones are created with the Provider bulk create API and template links are added in parallel. Returns a result per item in request order; a failed item does not stop the others."
+    )
+    public ResponseEntity<BulkUpsertDtos.BulkResponse> upsertBulk(@RequestBody BulkUpsertDtos.BulkCasesRequest req) {
+        return ResponseEntity.ok(service.upsertCases(req.items()));
+    }
+
     @GetMapping(path = "/{issueKey}/payload/history")
     @Operation(
             summary = "Get Smart Case payload history (BETA FEATURE)",
@@ -1,14 +1,20 @@
 package com.acme.herald.smartcase;
 
 import com.acme.herald.config.JiraConfigService;
+import com.acme.herald.config.JiraIntegrationConfigDtos;
 import com.acme.herald.config.JiraProperties;
 import com.acme.herald.domain.JiraModels;
+import com.acme.herald.domain.dto.BulkUpsertDtos;
 import com.acme.herald.domain.dto.CaseHistoryDtos;
 import com.acme.herald.domain.dto.CaseRef;
 import com.acme.herald.domain.dto.UpsertCase;
+import com.acme.herald.links.IssueBulkUpserter;
+import com.acme.herald.links.IssueKeyDirectory;
 import com.acme.herald.links.LinkService;
 import com.acme.herald.provider.JiraProvider;
-import com.acme.herald.web.JqlUtils;
+import com.acme.herald.provider.JiraUpstreamException;
+import com.acme.herald.search.SearchCache;
+import com.acme.herald.web.Jql;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -16,6 +22,7 @@ import tools.jackson.databind.JsonNode;
 
 import java.util.*;
 
+import static com.acme.herald.links.IssueKeyDirectory.Kind.CASE;
 import static com.acme.herald.links.LinkService.looksLikeIssueLinksNotAllowed;
 import static com.acme.herald.links.LinkService.safeMsg;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
@@ -28,59 +35,24 @@ public class CaseService {
     private final JiraProperties jiraProps;
     private final JiraConfigService jiraCfg;
     private final LinkService linkService;
+    private final SearchCache searchCache;
+    private final IssueKeyDirectory issueKeys;
+    private final IssueBulkUpserter bulk;
 
     public CaseRef upsertCase(UpsertCase req) {
         var cfg = jiraCfg.getForRuntime();
-        var issueTypes = cfg.issueTypes();
-        var fieldsCfg = cfg.fields();
-
-        if (req.status() != null) {
-            String cat = req.status().trim().toUpperCase();
-
-            var map = cfg.status().caseStatusMap();
-            if (map == null || map.isEmpty()) {
-                throw new IllegalStateException("Brak konfiguracji statusów case (caseStatusMap).");
-            }
-
-            if (!map.containsKey(cat) || map.get(cat) == null || map.get(cat).isBlank()) {
-                throw new IllegalArgumentException(
-                        "Niepoprawna kategoria statusu case: " + req.status()
-                                + ". Dozwolone: " + map.keySet()
-                );
-            }
-        }
-
-        // pola issue
-        var fields = new HashMap<String, Object>();
-        fields.put("summary", isNotBlank(req.summary()) ? req.summary() : req.caseId());
-        fields.put("project", Map.of("key", jiraProps.getProjectKey()));
-        fields.put("issuetype", Map.of("name", issueTypes.caseIssue()));
-        fields.put("labels", req.labels() != null ? req.labels() : List.of());
-        fields.put(fieldsCfg.caseId(), req.caseId());
-        fields.put(fieldsCfg.payload(), req.payload().toString());
-
-//        fields.put(fieldsCfg.templateId(), req.template_id());
-//        fields.put("summary", ofNullable(req.summary()).orElse(""));
-//        fields.put("description", ofNullable(req.description()).orElse(""));
-//        fields.put(fieldsCfg.casePayload(), req.description());
-
-        if (fieldsCfg.caseStatus() != null && !fieldsCfg.caseStatus().isBlank()) {
-            fields.put(fieldsCfg.caseStatus(), req.status());
+        validateStatus(cfg, req.status());
+        Map<String, Object> fields = caseFields(cfg, req);
+
+        String caseKey = issueKeys.resolve(CASE, req.caseId(), () -> findCaseKeyOrNull(cfg, req.caseId()));
+        if (caseKey != null && !updateOrMissing(caseKey, fields)) {
+            // mapa wskazała issue, którego już nie ma — szukamy jeszcze raz w Jirze
+            issueKeys.forget(CASE, req.caseId());
+            caseKey = issueKeys.resolve(CASE, req.caseId(), () -> findCaseKeyOrNull(cfg, req.caseId()));
+            if (caseKey != null) jira.updateIssue(caseKey, Map.of("fields", fields));
         }
 
-        String jql = "project = %s AND %s ~ \"%s\" AND issuetype = \"%s\""
-                .formatted(
-                        cfg.projectKey(),
-                        JqlUtils.toJqlField(fieldsCfg.caseId()),
-                        JqlUtils.escapeJql(req.caseId()),
-                        JqlUtils.escapeJql(cfg.issueTypes().caseIssue())
-                );
-
-        var existing = jira.search(jql, 0, 1);
-
-        String caseKey;
-
-        if (existing.total() == 0) {
+        if (caseKey == null) {
             // CREATE
             Map<String, Object> createBody = new HashMap<>();
             createBody.put("fields", fields);
@@ -102,22 +74,108 @@ public class CaseService {
                     throw e;
                 }
             }
+            issueKeys.remember(CASE, req.caseId(), caseKey);
 
             if (linkInfo.isLinkable()) {
                 linkService.ensureLinked(linkInfo, caseKey);
             }
-
-        } else {
-            // UPDATE
-            JsonNode issue = existing.issues().stream().findAny().orElseThrow();
-            caseKey = issue.get("key").asString(null);
-            jira.updateIssue(caseKey, Map.of("fields", fields));
         }
 
+        searchCache.invalidateAll();
         return new CaseRef(caseKey);
     }
 
 
+    /**
+     * Import / migracja: wiele case'ów naraz. Istniejące klucze jednym JQL na porcję, create przez
+     * /issue/bulk, linki do template równolegle. Wynik per pozycja (błąd jednej nie przerywa reszty).
+     */
+    public BulkUpsertDtos.BulkResponse upsertCases(List<UpsertCase> reqs) {
+        var cfg = jiraCfg.getForRuntime();
+        String templateLinkTypeId = linkService.templateToCaseLinkTypeId();
+
+        List<IssueBulkUpserter.Item> items = new ArrayList<>();
+        for (UpsertCase req : reqs != null ? reqs : List.<UpsertCase>of()) {
+            try {
+                if (req == null || !isNotBlank(req.caseId()) || req.payload() == null) {
+                    throw new IllegalArgumentException("Wymagane: caseId i payload.");
+                }
+                validateStatus(cfg, req.status());
+                items.add(IssueBulkUpserter.Item.of(req.caseId(), caseFields(cfg, req), req.templateId(), templateLinkTypeId));
+            } catch (IllegalArgumentException e) {
+                items.add(IssueBulkUpserter.Item.invalid(req != null ? req.caseId() : null, e.getMessage()));
+            }
+        }
+
+        var target = new IssueBulkUpserter.Target(CASE, cfg.projectKey(), cfg.issueTypes().caseIssue(), cfg.fields().caseId());
+        var out = bulk.upsert(target, items);
+        searchCache.invalidateAll();
+        return out;
+    }
+
+    private static void validateStatus(JiraIntegrationConfigDtos.JiraIntegrationConfigDto cfg, String status) {
+        if (status == null) return;
+
+        String cat = status.trim().toUpperCase();
+
+        var map = cfg.status().caseStatusMap();
+        if (map == null || map.isEmpty()) {
+            throw new IllegalStateException("Brak konfiguracji statusów case (caseStatusMap).");
+        }
+
+        if (!map.containsKey(cat) || map.get(cat) == null || map.get(cat).isBlank()) {
+            throw new IllegalArgumentException(
+                    "Niepoprawna kategoria statusu case: " + status
+                            + ". Dozwolone: " + map.keySet()
+            );
+        }
+    }
+
+    private Map<String, Object> caseFields(JiraIntegrationConfigDtos.JiraIntegrationConfigDto cfg, UpsertCase req) {
+        var fieldsCfg = cfg.fields();
+        var fields = new HashMap<String, Object>();
+        fields.put("summary", isNotBlank(req.summary()) ? req.summary() : req.caseId());
+        fields.put("project", Map.of("key", jiraProps.getProjectKey()));
+        fields.put("issuetype", Map.of("name", cfg.issueTypes().caseIssue()));
+        fields.put("labels", req.labels() != null ? req.labels() : List.of());
+        fields.put(fieldsCfg.caseId(), req.caseId());
+        fields.put(fieldsCfg.payload(), req.payload().toString());
+
+//        fields.put(fieldsCfg.templateId(), req.template_id());
+//        fields.put("summary", ofNullable(req.summary()).orElse(""));
+//        fields.put("description", ofNullable(req.description()).orElse(""));
+//        fields.put(fieldsCfg.casePayload(), req.description());
+
+        if (fieldsCfg.caseStatus() != null && !fieldsCfg.caseStatus().isBlank()) {
+            fields.put(fieldsCfg.caseStatus(), req.status());
+        }
+        return fields;
+    }
+
+    /** Dotychczasowe wyszukiwanie po caseId (JQL ~) — tylko gdy mapa id -> klucz nie ma wpisu. */
+    private String findCaseKeyOrNull(JiraIntegrationConfigDtos.JiraIntegrationConfigDto cfg, String caseId) {
+        String jql = Jql.and(
+                Jql.field("project").eq(cfg.projectKey()),
+                Jql.field(cfg.fields().caseId()).contains(caseId),
+                Jql.field("issuetype").eq(cfg.issueTypes().caseIssue())
+        ).render();
+
+        // ~ jest rozmyte — liczy się wyłącznie issue z dokładnie tym caseId
+        var existing = jira.search(jql, 0, IssueKeyDirectory.EXACT_MATCH_CANDIDATES, List.of(cfg.fields().caseId()));
+        return IssueKeyDirectory.exactKeyOrNull(existing, cfg.fields().caseId(), caseId);
+    }
+
+    /** false = issue nie istnieje (404) — wpis w mapie był nieaktualny. */
+    private boolean updateOrMissing(String issueKey, Map<String, Object> fields) {
+        try {
+            jira.updateIssue(issueKey, Map.of("fields", fields));
+            return true;
+        } catch (JiraUpstreamException e) {
+            if (!e.isNotFound()) throw e;
+            return false;
+        }
+    }
+
     public CaseHistoryDtos.PayloadHistory payloadHistory(String issueKey) {
         var cfg = jiraCfg.getForRuntime();
         String fieldId = cfg.fields().payload();
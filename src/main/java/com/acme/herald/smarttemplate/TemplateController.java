@@ -1,5 +1,6 @@
 package com.acme.herald.smarttemplate;
 
+import com.acme.herald.domain.dto.BulkUpsertDtos;
 import com.acme.herald.domain.dto.TemplateRef;
 import com.acme.herald.domain.dto.UpsertTemplate;
 import com.acme.herald.web.dto.CommonDtos;
@@ -29,6 +30,15 @@ public class TemplateController {
         return ResponseEntity.ok(ref);
     }
 
+    @PutMapping(path = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+            summary = "Create or update many Smart Templates",
+            description = "Bulk upsert for imports and migrations. Existing issues are resolved with batched queries, new ones are created with the Provider bulk create API and fork links are added in parallel. Returns a result per item in request order; a failed item does not stop the others."
+    )
+    public ResponseEntity<BulkUpsertDtos.BulkResponse> upsertBulk(@RequestBody BulkUpsertDtos.BulkTemplatesRequest req) {
+        return ResponseEntity.ok(service.upsertTemplates(req.items()));
+    }
+
     @PutMapping(path = "/{issueKey}/like", consumes = MediaType.APPLICATION_JSON_VALUE)
     @Operation(
             summary = "Like or unlike a template",
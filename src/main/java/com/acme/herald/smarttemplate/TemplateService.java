@@ -1,22 +1,30 @@
 package com.acme.herald.smarttemplate;
 
 import com.acme.herald.config.JiraConfigService;
+import com.acme.herald.config.JiraIntegrationConfigDtos;
 import com.acme.herald.config.JiraProperties;
 import com.acme.herald.domain.JiraModels;
+import com.acme.herald.domain.dto.BulkUpsertDtos;
 import com.acme.herald.domain.dto.TemplateRef;
 import com.acme.herald.domain.dto.UpsertTemplate;
+import com.acme.herald.links.IssueBulkUpserter;
+import com.acme.herald.links.IssueKeyDirectory;
 import com.acme.herald.links.LinkService;
 import com.acme.herald.provider.JiraProvider;
-import com.acme.herald.web.JqlUtils;
+import com.acme.herald.provider.JiraUpstreamException;
+import com.acme.herald.search.SearchCache;
+import com.acme.herald.web.Jql;
 import com.acme.herald.web.dto.CommonDtos;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import static com.acme.herald.links.IssueKeyDirectory.Kind.TEMPLATE;
 import static com.acme.herald.links.LinkService.looksLikeIssueLinksNotAllowed;
 import static com.acme.herald.links.LinkService.safeMsg;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
@@ -29,53 +37,26 @@ public class TemplateService {
     private final JiraProperties jiraProps;
     private final JiraConfigService jiraCfg;
     private final LinkService linkService;
+    private final SearchCache searchCache;
+    private final IssueKeyDirectory issueKeys;
+    private final IssueBulkUpserter bulk;
 
     public TemplateRef upsertTemplate(UpsertTemplate req) {
         var cfg = jiraCfg.getForRuntime();
-        var issueTypes = cfg.issueTypes();
         var fieldsCfg = cfg.fields();
 
-        if (req.status() != null) {
-            String raw = req.status().trim();
-            String cat = raw.toUpperCase();
+        validateStatus(cfg, req.status());
+        Map<String, Object> fields = templateFields(cfg, req);
 
-            var map = cfg.status().templateStatusMap();
-            if (map == null || map.isEmpty()) {
-                throw new IllegalStateException("Brak konfiguracji statusów template (templateStatusMap).");
-            }
-
-            boolean okAsCategory = map.containsKey(cat) && map.get(cat) != null && !map.get(cat).isBlank();
-            boolean okAsJiraStatusName = map.values().stream().anyMatch(v -> v != null && v.equalsIgnoreCase(raw));
-
-            if (!okAsCategory && !okAsJiraStatusName) {
-                throw new IllegalArgumentException(
-                        "Niepoprawny status template: " + req.status()
-                                + ". Dozwolone kategorie: " + map.keySet()
-                                + " albo nazwy statusów Jira: " + map.values()
-                );
-            }
+        String templateKey = issueKeys.resolve(TEMPLATE, req.templateId(), () -> findTemplateKeyOrNull(fieldsCfg.templateId(), req.templateId()));
+        if (templateKey != null && !updateOrMissing(templateKey, fields)) {
+            // mapa wskazała issue, którego już nie ma — szukamy jeszcze raz w Jirze
+            issueKeys.forget(TEMPLATE, req.templateId());
+            templateKey = issueKeys.resolve(TEMPLATE, req.templateId(), () -> findTemplateKeyOrNull(fieldsCfg.templateId(), req.templateId()));
+            if (templateKey != null) jira.updateIssue(templateKey, Map.of("fields", fields));
         }
 
-        // pola issue
-        var fields = new java.util.HashMap<String, Object>();
-        fields.put("summary", isNotBlank(req.title()) ? req.title() : req.templateId());
-        fields.put("project", Map.of("key", jiraProps.getProjectKey()));
-        fields.put("issuetype", Map.of("name", issueTypes.template()));
-        fields.put("labels", req.labels() != null ? req.labels() : List.of());
-        fields.put(fieldsCfg.templateId(), req.templateId());
-        fields.put(fieldsCfg.payload(), req.payload().toString());
-        fields.put(fieldsCfg.templateStatus(), req.status());
-
-        String jql = "%s ~ \"%s\""
-                .formatted(
-                        JqlUtils.toJqlField(fieldsCfg.templateId()),
-                        JqlUtils.escapeJql(req.templateId())
-                );
-
-        JiraModels.SearchResponse existing = jira.search(jql, 0, 1);
-
-        String templateKey;
-        if (existing.total() <= 0 || existing.issues() == null || existing.issues().isEmpty()) {
+        if (templateKey == null) {
             // CREATE
             Map<String, Object> createBody = new HashMap<>();
             createBody.put("fields", fields);
@@ -96,24 +77,101 @@ public class TemplateService {
                     throw e;
                 }
             }
+            issueKeys.remember(TEMPLATE, req.templateId(), templateKey);
 
             if (linkInfo.isLinkable()) {
                 linkService.ensureLinked(linkInfo, templateKey);
             }
-        } else {
-            // UPDATE
-            var issue = existing.issues().getFirst();
-            templateKey = issue.path("key").asString();
-            if (!isNotBlank(templateKey)) {
-                throw new IllegalStateException("Jira search returned issue without key for jql: " + jql);
-            }
-            jira.updateIssue(templateKey, Map.of("fields", fields));
         }
 
+        // galeria ma zobaczyć zmianę od razu, nie po TTL cache wyszukiwania
+        searchCache.invalidateAll();
+
         String url = jiraProps.getBaseUrl() + "/browse/" + templateKey;
         return new TemplateRef(templateKey, url);
     }
 
+    /**
+     * Import / migracja: wiele template naraz. Istniejące klucze jednym JQL na porcję, create przez
+     * /issue/bulk, linki forków równolegle. Wynik per pozycja (błąd jednej nie przerywa reszty).
+     */
+    public BulkUpsertDtos.BulkResponse upsertTemplates(List<UpsertTemplate> reqs) {
+        var cfg = jiraCfg.getForRuntime();
+        String forkLinkTypeId = linkService.templateToForkLinkTypeId();
+
+        List<IssueBulkUpserter.Item> items = new ArrayList<>();
+        for (UpsertTemplate req : reqs != null ? reqs : List.<UpsertTemplate>of()) {
+            try {
+                if (req == null || !isNotBlank(req.templateId()) || req.payload() == null) {
+                    throw new IllegalArgumentException("Wymagane: templateId i payload.");
+                }
+                validateStatus(cfg, req.status());
+                items.add(IssueBulkUpserter.Item.of(req.templateId(), templateFields(cfg, req), req.sourceTemplateId(), forkLinkTypeId));
+            } catch (IllegalArgumentException e) {
+                items.add(IssueBulkUpserter.Item.invalid(req != null ? req.templateId() : null, e.getMessage()));
+            }
+        }
+
+        var target = new IssueBulkUpserter.Target(TEMPLATE, cfg.projectKey(), cfg.issueTypes().template(), cfg.fields().templateId());
+        var out = bulk.upsert(target, items);
+        searchCache.invalidateAll();
+        return out;
+    }
+
+    private static void validateStatus(JiraIntegrationConfigDtos.JiraIntegrationConfigDto cfg, String status) {
+        if (status == null) return;
+
+        String raw = status.trim();
+        String cat = raw.toUpperCase();
+
+        var map = cfg.status().templateStatusMap();
+        if (map == null || map.isEmpty()) {
+            throw new IllegalStateException("Brak konfiguracji statusów template (templateStatusMap).");
+        }
+
+        boolean okAsCategory = map.containsKey(cat) && map.get(cat) != null && !map.get(cat).isBlank();
+        boolean okAsJiraStatusName = map.values().stream().anyMatch(v -> v != null && v.equalsIgnoreCase(raw));
+
+        if (!okAsCategory && !okAsJiraStatusName) {
+            throw new IllegalArgumentException(
+                    "Niepoprawny status template: " + status
+                            + ". Dozwolone kategorie: " + map.keySet()
+                            + " albo nazwy statusów Jira: " + map.values()
+            );
+        }
+    }
+
+    private Map<String, Object> templateFields(JiraIntegrationConfigDtos.JiraIntegrationConfigDto cfg, UpsertTemplate req) {
+        var fieldsCfg = cfg.fields();
+        var fields = new HashMap<String, Object>();
+        fields.put("summary", isNotBlank(req.title()) ? req.title() : req.templateId());
+        fields.put("project", Map.of("key", jiraProps.getProjectKey()));
+        fields.put("issuetype", Map.of("name", cfg.issueTypes().template()));
+        fields.put("labels", req.labels() != null ? req.labels() : List.of());
+        fields.put(fieldsCfg.templateId(), req.templateId());
+        fields.put(fieldsCfg.payload(), req.payload().toString());
+        fields.put(fieldsCfg.templateStatus(), req.status());
+        return fields;
+    }
+
+    /** Wyszukiwanie po templateId (JQL ~) — tylko gdy mapa id -> klucz nie ma wpisu; liczy się wyłącznie dokładne trafienie. */
+    private String findTemplateKeyOrNull(String templateIdField, String templateId) {
+        String jql = Jql.field(templateIdField).contains(templateId).render();
+        JiraModels.SearchResponse existing = jira.search(jql, 0, IssueKeyDirectory.EXACT_MATCH_CANDIDATES, List.of(templateIdField));
+        return IssueKeyDirectory.exactKeyOrNull(existing, templateIdField, templateId);
+    }
+
+    /** false = issue nie istnieje (404) — wpis w mapie był nieaktualny. */
+    private boolean updateOrMissing(String issueKey, Map<String, Object> fields) {
+        try {
+            jira.updateIssue(issueKey, Map.of("fields", fields));
+            return true;
+        } catch (JiraUpstreamException e) {
+            if (!e.isNotFound()) throw e;
+            return false;
+        }
+    }
+
     public void like(String issueKey, CommonDtos.LikeReq req) {
         jira.setVote(issueKey, req.liked());
     }
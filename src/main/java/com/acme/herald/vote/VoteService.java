@@ -58,8 +58,9 @@ public class VoteService {
     // ───── helpers ─────
 
     private VoteDtos.VoteIssueProperty readProperty(String issueKey, String voteId) {
+        // błąd Jiry (5xx/timeout) leci wyżej — pusty stan nadpisałby głosy przy zapisie
+        JsonNode val = jira.getIssueProperty(issueKey, propertyKey(voteId)); // <-- już "value"
         try {
-            JsonNode val = jira.getIssueProperty(issueKey, propertyKey(voteId)); // <-- już "value"
             if (val != null && val.isObject() && val.size() > 0) {
                 VoteDtos.VoteIssueProperty p = jsonMapper.treeToValue(val, VoteDtos.VoteIssueProperty.class);
 
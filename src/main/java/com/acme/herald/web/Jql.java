@@ -0,0 +1,198 @@
+package com.acme.herald.web;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Mały builder / parser JQL zamiast sklejania stringów.
+ *
+ * - parse: dzieli zapytanie na warunek i ORDER BY tokenizerem, który zna literały ("..." / '...')
+ *   i nawiasy — ORDER BY w cudzysłowie albo w nawiasie nie jest traktowane jako sortowanie,
+ * - Query.and: dokleja warunek strukturalnie: (zapytanie) AND warunek — OR w zapytaniu
+ *   użytkownika nie "przeskakuje" guarda,
+ * - field(...).eq/contains/...: wartości zawsze w cudzysłowie z escapowaniem \ i ".
+ */
+public final class Jql {
+    private Jql() {}
+
+    private static final Pattern PLAIN_FIELD = Pattern.compile("^[A-Za-z0-9_.]+$|^cf\\[\\d+]$");
+
+    // ───────────── warunki ─────────────
+
+    public interface Condition {
+        String render();
+    }
+
+    public static Field field(String idOrName) {
+        return new Field(idOrName);
+    }
+
+    public static Condition and(Condition... parts) {
+        return new Junction("AND", List.of(parts));
+    }
+
+    public static Condition or(Condition... parts) {
+        return new Junction("OR", List.of(parts));
+    }
+
+    /** Gotowy, już wyrenderowany warunek (np. skompilowany guard trzymany w cache). */
+    public static Condition compile(Condition c) {
+        return new Rendered(c.render(), c instanceof Junction j && j.op().equals("OR"));
+    }
+
+    public record Field(String idOrName) {
+        public Condition eq(String value) {
+            return new Compare(this, "=", value);
+        }
+
+        public Condition gte(String value) {
+            return new Compare(this, ">=", value);
+        }
+
+        public Condition contains(String value) {
+            return new Compare(this, "~", value);
+        }
+
+        public Condition notContains(String value) {
+            return new Compare(this, "!~", value);
+        }
+
+        /** field in ("a", "b", ...) — pusta lista to błąd wywołującego. */
+        public Condition in(Collection<String> values) {
+            if (values == null || values.isEmpty()) throw new IllegalArgumentException("Empty IN list for " + idOrName);
+            List<String> quoted = values.stream().map(Jql::quote).toList();
+            return () -> render() + " in (" + String.join(", ", quoted) + ")";
+        }
+
+        public Condition isEmpty() {
+            return () -> render() + " is EMPTY";
+        }
+
+        String render() {
+            String f = JqlUtils.toJqlField(idOrName);
+            return PLAIN_FIELD.matcher(f).matches() ? f : quote(f);
+        }
+    }
+
+    private record Compare(Field field, String op, String value) implements Condition {
+        @Override
+        public String render() {
+            return field.render() + " " + op + " " + quote(value);
+        }
+    }
+
+    private record Junction(String op, List<Condition> parts) implements Condition {
+        @Override
+        public String render() {
+            List<String> out = new ArrayList<>();
+            for (Condition c : parts) {
+                if (c == null) continue;
+                String r = c.render();
+                if (r.isBlank()) continue;
+                // OR wewnątrz AND (i odwrotnie) zawsze w nawiasie
+                out.add(needsParens(c, op) ? "(" + r + ")" : r);
+            }
+            return String.join(" " + op + " ", out);
+        }
+    }
+
+    private record Rendered(String text, boolean disjunction) implements Condition {
+        @Override
+        public String render() {
+            return text;
+        }
+    }
+
+    private static boolean needsParens(Condition c, String parentOp) {
+        if (c instanceof Junction j) return !j.op().equals(parentOp) && j.parts().size() > 1;
+        if (c instanceof Rendered r) return r.disjunction() || parentOp.equals("OR");
+        return false;
+    }
+
+    /** Literał JQL: "..." z escapowaniem backslasha i cudzysłowu. */
+    public static String quote(String value) {
+        String s = value == null ? "" : value;
+        return "\"" + s.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    // ───────────── zapytanie ─────────────
+
+    /** Warunek (może być pusty) + ORDER BY (bez słów "ORDER BY", może być pusty). */
+    public record Query(String where, String orderBy) {
+
+        /** (where) AND condition; przy pustym where — sam warunek. */
+        public Query and(Condition condition) {
+            String c = condition == null ? "" : condition.render().trim();
+            if (c.isEmpty()) return this;
+            if (where.isBlank()) return new Query(c, orderBy);
+
+            String right = condition instanceof Junction j && j.op().equals("OR")
+                    || condition instanceof Rendered r && r.disjunction() ? "(" + c + ")" : c;
+            return new Query("(" + where + ") AND " + right, orderBy);
+        }
+
+        public String render() {
+            if (orderBy.isBlank()) return where;
+            return where.isBlank() ? "ORDER BY " + orderBy : where + " ORDER BY " + orderBy;
+        }
+    }
+
+    /**
+     * Dzieli JQL na warunek i ORDER BY: szuka słów ORDER BY poza literałami, na zerowym
+     * poziomie nawiasów i na granicy słów. Niezbalansowane nawiasy albo niedomknięty literał
+     * -> IllegalArgumentException (400) — takiego zapytania nie da się bezpiecznie objąć guardem.
+     */
+    public static Query parse(String raw) {
+        String q = raw == null ? "" : raw.trim();
+        int depth = 0;
+        char quote = 0;
+        int orderAt = -1;
+        int orderByEnd = -1;
+
+        for (int i = 0; i < q.length(); i++) {
+            char c = q.charAt(i);
+            if (quote != 0) {
+                if (c == '\\') i++;
+                else if (c == quote) quote = 0;
+                continue;
+            }
+            if (c == '"' || c == '\'') quote = c;
+            else if (c == '(') depth++;
+            else if (c == ')') {
+                if (--depth < 0) throw new IllegalArgumentException("Nieprawidłowy JQL: nadmiarowy nawias ')'.");
+            } else if (depth == 0 && orderAt < 0 && isWordAt(q, i, "order")) {
+                int j = skipSpaces(q, i + 5);
+                if (j > i + 5 && isWordAt(q, j, "by")) {
+                    orderAt = i;
+                    orderByEnd = j + 2;
+                }
+            }
+        }
+        if (quote != 0) throw new IllegalArgumentException("Nieprawidłowy JQL: niedomknięty literał.");
+        if (depth != 0) throw new IllegalArgumentException("Nieprawidłowy JQL: niedomknięty nawias '('.");
+
+        if (orderAt < 0) return new Query(q, "");
+        return new Query(q.substring(0, orderAt).trim(), q.substring(orderByEnd).trim());
+    }
+
+    private static boolean isWordAt(String s, int i, String word) {
+        int end = i + word.length();
+        if (end > s.length()) return false;
+        if (!s.substring(i, end).toLowerCase(Locale.ROOT).equals(word)) return false;
+        boolean startOk = i == 0 || !isWordChar(s.charAt(i - 1));
+        boolean endOk = end == s.length() || !isWordChar(s.charAt(end));
+        return startOk && endOk;
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    private static int skipSpaces(String s, int i) {
+        while (i < s.length() && Character.isWhitespace(s.charAt(i))) i++;
+        return i;
+    }
+}
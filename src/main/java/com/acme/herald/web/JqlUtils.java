@@ -12,9 +12,4 @@ public class JqlUtils {
         if (m.matches()) return "cf[" + m.group(1) + "]";
         return f;
     }
-
-    public static String escapeJql(String s) {
-        if (s == null) return "";
-        return s.replace("\"", "\\\"");
-    }
 }
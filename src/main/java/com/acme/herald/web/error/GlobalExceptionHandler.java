@@ -3,7 +3,9 @@ package com.acme.herald.web.error;
 import com.acme.herald.web.dto.CommonDtos;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -55,6 +57,44 @@ public class GlobalExceptionHandler {
         );
     }
 
+    @ResponseStatus(HttpStatus.CONTENT_TOO_LARGE)
+    @ExceptionHandler(PayloadTooLargeException.class)
+    public CommonDtos.ApiError handleTooLarge(PayloadTooLargeException e) {
+        log.warn("PayloadTooLargeException: {}", e.getMessage());
+        return new CommonDtos.ApiError(
+                e.code(),
+                e.getMessage(),
+                null,
+                null
+        );
+    }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<CommonDtos.ApiError> handleTooManyRequests(TooManyRequestsException e) {
+        log.warn("TooManyRequestsException: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, e.retryAfterSeconds())))
+                .body(new CommonDtos.ApiError(
+                        e.code(),
+                        e.getMessage(),
+                        null,
+                        null
+                ));
+    }
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<CommonDtos.ApiError> handleUnavailable(ServiceUnavailableException e) {
+        log.warn("ServiceUnavailableException: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, e.retryAfterSeconds())))
+                .body(new CommonDtos.ApiError(
+                        e.code(),
+                        e.getMessage(),
+                        null,
+                        null
+                ));
+    }
+
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     @ExceptionHandler(Throwable.class)
     public CommonDtos.ApiError handleAny(Throwable e, HttpServletRequest req) {
@@ -0,0 +1,18 @@
+package com.acme.herald.web.error;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONTENT_TOO_LARGE)
+public class PayloadTooLargeException extends RuntimeException {
+    private final String code;
+
+    public PayloadTooLargeException(String code, String message) {
+        super(message);
+        this.code = code;
+    }
+
+    public String code() {
+        return code;
+    }
+}
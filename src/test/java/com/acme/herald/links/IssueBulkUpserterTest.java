@@ -0,0 +1,118 @@
+package com.acme.herald.links;
+
+import com.acme.herald.auth.JiraAuthContext;
+import com.acme.herald.auth.TokenPayload;
+import com.acme.herald.config.BulkUpsertProperties;
+import com.acme.herald.config.IssueKeyMapProperties;
+import com.acme.herald.config.JiraProperties;
+import com.acme.herald.domain.JiraModels;
+import com.acme.herald.domain.dto.BulkUpsertDtos;
+import com.acme.herald.provider.JiraProvider;
+import com.acme.herald.provider.JiraUpstreamException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IssueBulkUpserterTest {
+
+    private static final IssueBulkUpserter.Target TARGET =
+            new IssueBulkUpserter.Target(IssueKeyDirectory.Kind.TEMPLATE, "ABC", "Template", "customfield_10010");
+    private static final TokenPayload AUTH = new TokenPayload("Bearer test", null, null);
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void rejectedChunkMapsElementErrorsAndMarksTheRestForRetry() {
+        String body = """
+                {"issues":[],"errors":[{"status":400,"failedElementNumber":1,
+                 "elementErrors":{"errorMessages":[],"errors":{"summary":"Summary is required"}}}]}
+                """;
+
+        BulkUpsertDtos.BulkResponse resp = upsert(() -> {
+            throw new JiraUpstreamException(400, "JiraApiV2Client#createIssuesBulk", "Bad Request", body);
+        });
+
+        assertThat(resp.created()).isZero();
+        assertThat(resp.failed()).isEqualTo(3);
+        assertError(resp.items().get(0), "CHUNK_REJECTED", 409);
+        assertError(resp.items().get(1), "JIRA_REJECTED", 400);
+        assertThat(resp.items().get(1).error().message()).isEqualTo("summary: Summary is required");
+        assertError(resp.items().get(2), "CHUNK_REJECTED", 409);
+    }
+
+    @Test
+    void partialSuccessAssignsCreatedKeysInElementOrder() {
+        var failed = new JiraModels.BulkCreateError(400,
+                JsonMapper.builder().build().readTree("{\"errorMessages\":[\"Issue type is required\"]}"), 1);
+
+        BulkUpsertDtos.BulkResponse resp = upsert(() -> new JiraModels.BulkCreateResponse(
+                List.of(new JiraModels.CreateIssueResponse("1", "ABC-1", null),
+                        new JiraModels.CreateIssueResponse("2", "ABC-2", null)),
+                List.of(failed)));
+
+        assertThat(resp.created()).isEqualTo(2);
+        assertThat(resp.failed()).isEqualTo(1);
+        assertThat(resp.items().get(0).issueKey()).isEqualTo("ABC-1");
+        assertThat(resp.items().get(0).action()).isEqualTo("CREATED");
+        assertError(resp.items().get(1), "JIRA_REJECTED", 400);
+        assertThat(resp.items().get(1).error().message()).isEqualTo("Issue type is required");
+        assertThat(resp.items().get(2).issueKey()).isEqualTo("ABC-2");
+    }
+
+    @Test
+    void badRequestWithoutElementErrorsFailsWholeChunkAsJiraError() {
+        BulkUpsertDtos.BulkResponse resp = upsert(() -> {
+            throw new JiraUpstreamException(400, "JiraApiV2Client#createIssuesBulk", "Bad Request",
+                    "{\"errorMessages\":[\"Project does not exist\"],\"errors\":{}}");
+        });
+
+        assertThat(resp.failed()).isEqualTo(3);
+        resp.items().forEach(item -> assertError(item, "JIRA_ERROR", 400));
+    }
+
+    private BulkUpsertDtos.BulkResponse upsert(Supplier<JiraModels.BulkCreateResponse> createIssues) {
+        JiraProvider jira = fakeJira(createIssues);
+        var meters = new SimpleMeterRegistry();
+        var issueKeys = new IssueKeyDirectory(jira, new JiraProperties(), new IssueKeyMapProperties(false, false, 10), meters);
+        var upserter = new IssueBulkUpserter(jira, issueKeys, null, new BulkUpsertProperties(),
+                executor, JsonMapper.builder().build());
+
+        List<IssueBulkUpserter.Item> items = List.of(
+                IssueBulkUpserter.Item.of("tpl-a", Map.of("summary", "A"), null, null),
+                IssueBulkUpserter.Item.of("tpl-b", Map.of(), null, null),
+                IssueBulkUpserter.Item.of("tpl-c", Map.of("summary", "C"), null, null));
+        return JiraAuthContext.callAs(AUTH, () -> upserter.upsert(TARGET, items));
+    }
+
+    /** Brak istniejących issue; createIssues wg testu, reszta API nieużywana. */
+    private static JiraProvider fakeJira(Supplier<JiraModels.BulkCreateResponse> createIssues) {
+        return (JiraProvider) Proxy.newProxyInstance(JiraProvider.class.getClassLoader(), new Class<?>[]{JiraProvider.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "search" -> new JiraModels.SearchResponse(0, 100, 0, List.of());
+                    case "createIssues" -> createIssues.get();
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static void assertError(BulkUpsertDtos.BulkItem item, String code, int status) {
+        assertThat(item.issueKey()).isNull();
+        assertThat(item.error()).isNotNull();
+        assertThat(item.error().code()).isEqualTo(code);
+        assertThat(item.error().status()).isEqualTo(status);
+    }
+}
@@ -0,0 +1,50 @@
+package com.acme.herald.resilience;
+
+import com.acme.herald.web.error.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BulkheadTest {
+
+    private final Bulkhead bulkhead = new Bulkhead("test", 1, Duration.ZERO, new SimpleMeterRegistry());
+
+    @Test
+    void rejectsWhenAllPermitsAreLeased() {
+        try (Bulkhead.Lease ignored = bulkhead.lease()) {
+            assertThat(bulkhead.inFlight()).isEqualTo(1);
+            assertThatThrownBy(() -> bulkhead.call(() -> "x"))
+                    .isInstanceOfSatisfying(ServiceUnavailableException.class, e -> {
+                        assertThat(e.code()).isEqualTo("UPSTREAM_BUSY");
+                        assertThat(e.retryAfterSeconds()).isEqualTo(1);
+                    });
+        }
+        assertThat(bulkhead.inFlight()).isZero();
+    }
+
+    @Test
+    void leaseReleasesOnlyOnce() {
+        Bulkhead.Lease first = bulkhead.lease();
+        first.close();
+        first.close();
+
+        Bulkhead.Lease second = bulkhead.lease();
+        assertThatThrownBy(bulkhead::lease).isInstanceOf(ServiceUnavailableException.class);
+        second.close();
+        assertThat(bulkhead.inFlight()).isZero();
+    }
+
+    @Test
+    void callReleasesPermitWhenBodyThrows() {
+        assertThatThrownBy(() -> bulkhead.call(() -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(bulkhead.inFlight()).isZero();
+        assertThat(bulkhead.call(() -> "ok")).isEqualTo("ok");
+    }
+}
@@ -0,0 +1,113 @@
+package com.acme.herald.resilience;
+
+import com.acme.herald.web.error.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong(Duration.ofHours(1).toNanos());
+    // okno 4, min. 4 calle, próg 50%, otwarty 10 s, 2 próby w half-open
+    private final CircuitBreaker breaker = new CircuitBreaker("test", 4, 4, 50,
+            Duration.ofSeconds(10), 2, new SimpleMeterRegistry(), now::get);
+
+    @Test
+    void staysClosedBelowMinCallsAndThreshold() {
+        breaker.onFailure();
+        breaker.onFailure();
+        breaker.onFailure();
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        CircuitBreaker other = new CircuitBreaker("other", 4, 4, 50,
+                Duration.ofSeconds(10), 2, new SimpleMeterRegistry(), now::get);
+        other.onSuccess();
+        other.onSuccess();
+        other.onSuccess();
+        other.onFailure();
+        assertThat(other.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void opensAtThresholdAndRejectsWithRemainingOpenTime() {
+        open();
+
+        now.addAndGet(Duration.ofMillis(3_500).toNanos());
+        assertThatThrownBy(breaker::acquirePermission)
+                .isInstanceOfSatisfying(ServiceUnavailableException.class, e -> {
+                    assertThat(e.code()).isEqualTo("UPSTREAM_CIRCUIT_OPEN");
+                    assertThat(e.retryAfterSeconds()).isEqualTo(6);
+                });
+    }
+
+    @Test
+    void oldResultsLeaveTheWindow() {
+        breaker.onFailure();
+        breaker.onSuccess();
+        breaker.onSuccess();
+        breaker.onSuccess();
+        breaker.onSuccess();
+        // okno: S S S S -> pierwsza porażka już wypadła
+        breaker.onFailure();
+
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void halfOpenLimitsTrialCallsAndClosesAfterSuccesses() {
+        open();
+        now.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        breaker.acquirePermission();
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        breaker.acquirePermission();
+        assertThatThrownBy(breaker::acquirePermission)
+                .isInstanceOfSatisfying(ServiceUnavailableException.class,
+                        e -> assertThat(e.retryAfterSeconds()).isEqualTo(1));
+
+        breaker.onSuccess();
+        breaker.onSuccess();
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+        breaker.acquirePermission();
+    }
+
+    @Test
+    void halfOpenFailureReopensForFullDuration() {
+        open();
+        now.addAndGet(Duration.ofSeconds(10).toNanos());
+        breaker.acquirePermission();
+
+        breaker.onFailure();
+
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThatThrownBy(breaker::acquirePermission)
+                .isInstanceOfSatisfying(ServiceUnavailableException.class,
+                        e -> assertThat(e.retryAfterSeconds()).isEqualTo(10));
+    }
+
+    @Test
+    void ignoredResultFreesHalfOpenSlot() {
+        open();
+        now.addAndGet(Duration.ofSeconds(10).toNanos());
+        breaker.acquirePermission();
+        breaker.acquirePermission();
+
+        breaker.onIgnored();
+
+        breaker.acquirePermission();
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+    }
+
+    private void open() {
+        breaker.onSuccess();
+        breaker.onFailure();
+        breaker.onSuccess();
+        breaker.onFailure();
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+}
@@ -0,0 +1,59 @@
+package com.acme.herald.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class TokenBucketTest {
+
+    private static final long SECOND = Duration.ofSeconds(1).toNanos();
+
+    private final AtomicLong now = new AtomicLong(1_000 * SECOND);
+
+    @Test
+    void takesUpToCapacityThenReportsWaitForNextToken() {
+        TokenBucket bucket = new TokenBucket(2, 60, now::get);
+
+        assertThat(bucket.tryTake()).isZero();
+        assertThat(bucket.tryTake()).isZero();
+        assertThat(bucket.tryTake()).isCloseTo(SECOND, within(2L));
+    }
+
+    @Test
+    void refillsProportionallyToElapsedTime() {
+        TokenBucket bucket = new TokenBucket(1, 60, now::get);
+        assertThat(bucket.tryTake()).isZero();
+
+        now.addAndGet(SECOND / 4);
+        assertThat(bucket.tryTake()).isCloseTo(3 * SECOND / 4, within(2L));
+
+        now.addAndGet(3 * SECOND / 4);
+        assertThat(bucket.tryTake()).isZero();
+    }
+
+    @Test
+    void refillIsCappedAtCapacity() {
+        TokenBucket bucket = new TokenBucket(2, 60, now::get);
+        bucket.tryTake();
+        assertThat(bucket.isFull()).isFalse();
+
+        now.addAndGet(Duration.ofHours(1).toNanos());
+        assertThat(bucket.isFull()).isTrue();
+        assertThat(bucket.tryTake()).isZero();
+        assertThat(bucket.tryTake()).isZero();
+        assertThat(bucket.tryTake()).isPositive();
+    }
+
+    @Test
+    void retryAfterRoundsUpToWholeSeconds() {
+        assertThat(TokenBucket.retryAfterSeconds(0)).isEqualTo(1);
+        assertThat(TokenBucket.retryAfterSeconds(1)).isEqualTo(1);
+        assertThat(TokenBucket.retryAfterSeconds(SECOND)).isEqualTo(1);
+        assertThat(TokenBucket.retryAfterSeconds(SECOND + 1)).isEqualTo(2);
+        assertThat(TokenBucket.retryAfterSeconds(Duration.ofSeconds(30).toNanos())).isEqualTo(30);
+    }
+}
@@ -0,0 +1,54 @@
+package com.acme.herald.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchCacheTest {
+
+    @Test
+    void normalizeCollapsesWhitespaceAndLowercasesKeywords() {
+        String jql = SearchCache.normalizeJql("  project  =  ABC   AND   Status = X  ORDER  BY created DESC ");
+
+        assertThat(jql).isEqualTo("project = ABC and Status = X order by created desc");
+    }
+
+    @Test
+    void normalizeKeepsLiteralsVerbatim() {
+        assertThat(SearchCache.normalizeJql("summary ~ \"AND  Now\"   OR  x = 1"))
+                .isEqualTo("summary ~ \"AND  Now\" or x = 1");
+        assertThat(SearchCache.normalizeJql("summary ~ 'x  Y'  AND  y = 2"))
+                .isEqualTo("summary ~ 'x  Y' and y = 2");
+        assertThat(SearchCache.normalizeJql("summary ~ \"a \\\" b\"   AND  x=1"))
+                .isEqualTo("summary ~ \"a \\\" b\" and x=1");
+    }
+
+    @Test
+    void normalizeMapsEquivalentQueriesToSameKey() {
+        assertThat(SearchCache.normalizeJql("project = ABC AND labels in (a, b)"))
+                .isEqualTo(SearchCache.normalizeJql("project   =   ABC  and\n labels  IN  (a, b)"));
+        assertThat(SearchCache.normalizeJql(null)).isEmpty();
+    }
+
+    @Test
+    void functionCallsForceCallerScope() {
+        assertThat(SearchCache.hasFunctionCall("assignee = currentUser()")).isTrue();
+        assertThat(SearchCache.hasFunctionCall("assignee in membersOf(\"jira-users\")")).isTrue();
+        assertThat(SearchCache.hasFunctionCall("assignee in membersOf ( \"g\" )")).isTrue();
+        assertThat(SearchCache.hasFunctionCall("created >= startOfDay(-1d)")).isTrue();
+    }
+
+    @Test
+    void groupingAndListsAreNotFunctionCalls() {
+        assertThat(SearchCache.hasFunctionCall("status in (Open, Done) and not (labels = x)")).isFalse();
+        assertThat(SearchCache.hasFunctionCall("project = ABC and(labels = x)")).isFalse();
+        assertThat(SearchCache.hasFunctionCall("status changed during (\"2024/01/01\", \"2024/02/01\")")).isFalse();
+        assertThat(SearchCache.hasFunctionCall(null)).isFalse();
+    }
+
+    @Test
+    void functionNameInsideLiteralIsIgnored() {
+        assertThat(SearchCache.hasFunctionCall("summary ~ \"currentUser()\"")).isFalse();
+        assertThat(SearchCache.hasFunctionCall("summary ~ 'membersOf(x)'")).isFalse();
+    }
+}
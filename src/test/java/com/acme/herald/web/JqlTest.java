@@ -0,0 +1,79 @@
+package com.acme.herald.web;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JqlTest {
+
+    private static final Jql.Condition GUARD = Jql.field("status").notContains("REJECTED");
+
+    @Test
+    void parseSplitsOrderBy() {
+        Jql.Query q = Jql.parse("project = ABC order  by created DESC");
+
+        assertThat(q.where()).isEqualTo("project = ABC");
+        assertThat(q.orderBy()).isEqualTo("created DESC");
+    }
+
+    @Test
+    void parseIgnoresOrderByInsideLiteralsAndParens() {
+        assertThat(Jql.parse("summary ~ \"order by x\"").orderBy()).isEmpty();
+        assertThat(Jql.parse("summary ~ 'a \\' order by b'").orderBy()).isEmpty();
+        assertThat(Jql.parse("(summary ~ x order by y)").orderBy()).isEmpty();
+        assertThat(Jql.parse("reorder by = 1").orderBy()).isEmpty();
+    }
+
+    @Test
+    void parseAcceptsOnlyOrderBy() {
+        Jql.Query q = Jql.parse("ORDER BY updated");
+
+        assertThat(q.where()).isEmpty();
+        assertThat(q.render()).isEqualTo("ORDER BY updated");
+    }
+
+    @Test
+    void parseRejectsUnbalancedParentheses() {
+        assertThatThrownBy(() -> Jql.parse("project = ABC) OR (project = XYZ"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Jql.parse("(project = ABC"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void parseRejectsUnterminatedLiteral() {
+        assertThatThrownBy(() -> Jql.parse("summary ~ \"abc) OR project = XYZ"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Jql.parse("summary ~ 'abc\\'"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void andWrapsUserQuerySoOrCannotSkipGuard() {
+        String jql = Jql.parse("project = ABC OR project = XYZ ORDER BY key").and(GUARD).render();
+
+        assertThat(jql).isEqualTo("(project = ABC OR project = XYZ) AND status !~ \"REJECTED\" ORDER BY key");
+    }
+
+    @Test
+    void andOnEmptyQueryIsGuardAlone() {
+        assertThat(Jql.parse("").and(GUARD).render()).isEqualTo("status !~ \"REJECTED\"");
+        assertThat(Jql.parse(null).and(GUARD).render()).isEqualTo("status !~ \"REJECTED\"");
+    }
+
+    @Test
+    void andParenthesizesDisjunctiveGuard() {
+        Jql.Condition guard = Jql.compile(Jql.or(Jql.field("status").isEmpty(), GUARD));
+
+        String jql = Jql.parse("project = ABC").and(guard).render();
+
+        assertThat(jql).isEqualTo("(project = ABC) AND (status is EMPTY OR status !~ \"REJECTED\")");
+    }
+
+    @Test
+    void quoteEscapesBackslashAndQuote() {
+        assertThat(Jql.quote("a\\\"b")).isEqualTo("\"a\\\\\\\"b\"");
+        assertThat(Jql.field("customfield_10010").eq("x").render()).isEqualTo("cf[10010] = \"x\"");
+    }
+}